@@ -0,0 +1,69 @@
+package helloswing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuilderBenchmark {
+    @Param({"4", "32", "256"})
+    private int columnCount;
+
+    private String columns;
+    private Map<String, Object> data;
+    private Map<String, Object> conditions;
+
+    @Setup
+    public void setUp() {
+        StringBuilder names = new StringBuilder();
+        data = new LinkedHashMap<>();
+        conditions = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                names.append(", ");
+            }
+            names.append("column_").append(i);
+            data.put("column_" + i, i % 2 == 0 ? "value " + i : Integer.valueOf(i));
+        }
+        columns = names.toString();
+        conditions.put("id", 42);
+        conditions.put("name", "O'Brien");
+    }
+
+    @Benchmark
+    public String buildSelectQuery() {
+        return QueryBuilder.buildSelectQuery("benchmark_table", columns, conditions);
+    }
+
+    @Benchmark
+    public String buildParameterizedSelectQuery() {
+        return QueryBuilder.buildSelectQuery("benchmark_table", columns, conditions, new ArrayList<>());
+    }
+
+    @Benchmark
+    public String buildInsertQuery() {
+        return QueryBuilder.buildInsertQuery("benchmark_table", data);
+    }
+
+    @Benchmark
+    public String buildUpdateQuery() {
+        return QueryBuilder.buildUpdateQuery("benchmark_table", data, conditions);
+    }
+}
@@ -0,0 +1,47 @@
+package helloswing;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextPane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sustained logging throughput. The pane is recreated for every iteration
+ * so the document size stays comparable between runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class StatusLoggerBenchmark {
+    private StatusLogger statusLogger;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        statusLogger = new StatusLogger(new JTextPane());
+    }
+
+    @Benchmark
+    public void log() {
+        statusLogger.log("Executed query: SELECT * FROM `benchmark_table` #" + sequence++);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void logContended() {
+        statusLogger.logSuccess("Loaded tables for database: benchmark");
+    }
+}
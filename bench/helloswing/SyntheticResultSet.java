@@ -0,0 +1,63 @@
+package helloswing;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+/**
+ * In-memory forward-only {@link ResultSet} of a fixed shape, so result
+ * handling can be measured without a server. Odd columns are strings and
+ * even columns are integers.
+ */
+final class SyntheticResultSet {
+    private SyntheticResultSet() {
+    }
+
+    static ResultSet create(int rows, int columns) {
+        String[] names = new String[columns];
+        Object[] values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            names[i] = "column_" + i;
+            values[i] = i % 2 == 0 ? (Object) Integer.valueOf(i) : "value " + i;
+        }
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns;
+                case "getColumnName":
+                case "getColumnLabel":
+                    return names[(Integer) args[0] - 1];
+                case "getColumnType":
+                    return (Integer) args[0] % 2 == 1 ? Types.INTEGER : Types.VARCHAR;
+                case "isSigned":
+                    return true;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        int[] cursor = { 0 };
+        return (ResultSet) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++cursor[0] <= rows;
+                case "getMetaData":
+                    return metaData;
+                case "getObject":
+                    return values[(Integer) args[0] - 1];
+                case "getString":
+                    return String.valueOf(values[(Integer) args[0] - 1]);
+                case "getInt":
+                    return ((Number) values[(Integer) args[0] - 1]).intValue();
+                case "wasNull":
+                    return false;
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package helloswing;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class TableModelBenchmark {
+    @Param({"1000", "100000"})
+    private int rowCount;
+
+    @Param({"4", "64"})
+    private int columnCount;
+
+    private ResultSet resultSet;
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        resultSet = SyntheticResultSet.create(rowCount, columnCount);
+    }
+
+    @Benchmark
+    public ColumnarTableModel createTableModel() throws SQLException {
+        return ColumnarTableModel.from(resultSet);
+    }
+}
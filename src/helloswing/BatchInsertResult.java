@@ -0,0 +1,139 @@
+package helloswing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchInsertResult {
+    private final long startNanos = System.nanoTime();
+    private final List<ChunkFailure> failures = new ArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+    private long endNanos;
+    private long rowsInserted;
+    private long rowsFailed;
+    private long rowsSkipped;
+    private long warningCount;
+    private int chunks;
+
+    void chunkSucceeded(int rows) {
+        chunks++;
+        rowsInserted += rows;
+    }
+
+    void chunkFailed(long firstRow, int rows, Exception cause) {
+        chunks++;
+        rowsFailed += rows;
+        failures.add(new ChunkFailure(firstRow, rows, cause));
+    }
+
+    /**
+     * Records a single row left out before it was sent, e.g. a malformed
+     * record in an imported file.
+     */
+    void rowRejected(long row, Exception cause) {
+        rowsFailed++;
+        failures.add(new ChunkFailure(row, 1, cause));
+    }
+
+    /**
+     * Records rows the server skipped without failing the statement, such
+     * as duplicate keys in LOAD DATA LOCAL.
+     */
+    void rowsSkipped(long rows) {
+        rowsSkipped += rows;
+    }
+
+    void warningsReported(long count) {
+        warningCount += count;
+    }
+
+    void addWarning(String warning) {
+        warnings.add(warning);
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getRowsProcessed() {
+        return rowsInserted + rowsFailed + rowsSkipped;
+    }
+
+    /**
+     * Number of warnings the server raised, of which at most the first few
+     * are kept in {@link #getWarnings()}.
+     */
+    public long getWarningCount() {
+        return warningCount;
+    }
+
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    public int getChunkCount() {
+        return chunks;
+    }
+
+    public List<ChunkFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public long getElapsedMillis() {
+        return ((endNanos != 0 ? endNanos : System.nanoTime()) - startNanos) / 1000000;
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = Math.max(1, getElapsedMillis());
+        return rowsInserted * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows inserted, %d failed%s in %d chunk(s)%s, %d ms (%.0f rows/s)",
+                rowsInserted, rowsFailed, rowsSkipped > 0 ? ", " + rowsSkipped + " skipped" : "", chunks,
+                warningCount > 0 ? ", " + warningCount + " warnings" : "", getElapsedMillis(), getRowsPerSecond());
+    }
+
+    public static final class ChunkFailure {
+        private final long firstRow;
+        private final int rowCount;
+        private final Exception cause;
+
+        ChunkFailure(long firstRow, int rowCount, Exception cause) {
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.cause = cause;
+        }
+
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            String rows = rowCount == 1 ? "row " + firstRow : "rows " + firstRow + "-" + (firstRow + rowCount - 1);
+            return rows + ": " + cause.getMessage();
+        }
+    }
+}
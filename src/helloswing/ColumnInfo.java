@@ -0,0 +1,52 @@
+package helloswing;
+
+public class ColumnInfo {
+    private final String name;
+    private final String type;
+    private final boolean nullable;
+    private final String key;
+    private final String defaultValue;
+    private final String extra;
+
+    public ColumnInfo(String name, String type, boolean nullable, String key, String defaultValue, String extra) {
+        this.name = name;
+        this.type = type;
+        this.nullable = nullable;
+        this.key = key;
+        this.defaultValue = defaultValue;
+        this.extra = extra;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public String getExtra() {
+        return extra;
+    }
+
+    public boolean isPrimaryKey() {
+        return "PRI".equals(key);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type + ")";
+    }
+}
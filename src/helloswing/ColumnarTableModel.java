@@ -0,0 +1,397 @@
+package helloswing;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model that stores a query result column by column.
+ * Integer and floating point columns are kept in primitive arrays with a
+ * null bitmap and text columns are dictionary-encoded while they have few
+ * distinct values, so a large numeric result needs a fraction of the heap of
+ * boxed {@code Object[]} rows. Values are boxed only when the table asks for
+ * a cell.
+ */
+public class ColumnarTableModel extends AbstractTableModel {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] columnNames;
+    private final Column[] columns;
+    private int rowCount;
+
+    private ColumnarTableModel(String[] columnNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+    }
+
+    /**
+     * Reads every remaining row of {@code rs}, choosing each column's storage
+     * from its SQL type.
+     */
+    public static ColumnarTableModel from(ResultSet rs) throws SQLException {
+        return from(rs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads at most {@code maxRows} rows of {@code rs}, leaving the cursor
+     * on the last row read.
+     */
+    public static ColumnarTableModel from(ResultSet rs, int maxRows) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            names[i - 1] = metaData.getColumnName(i);
+            columns[i - 1] = createColumn(metaData.getColumnType(i), metaData.isSigned(i));
+        }
+        ColumnarTableModel model = new ColumnarTableModel(names, columns);
+        int rows = 0;
+        while (rows < maxRows && rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].read(rs, i + 1, rows);
+            }
+            rows++;
+        }
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+        model.rowCount = rows;
+        return model;
+    }
+
+    private static Column createColumn(int sqlType, boolean signed) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntColumn();
+            case Types.INTEGER:
+                return signed ? new IntColumn() : new LongColumn();
+            case Types.BIGINT:
+                return signed ? new LongColumn() : new ObjectColumn();
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].type();
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    /**
+     * Approximate heap used by the column data, for diagnostics.
+     */
+    public long estimateSizeBytes() {
+        long size = 0;
+        for (Column column : columns) {
+            size += column.sizeBytes();
+        }
+        return size;
+    }
+
+    private abstract static class Column {
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract Object get(int row);
+
+        abstract Class<?> type();
+
+        abstract void trim(int rows);
+
+        abstract long sizeBytes();
+    }
+
+    /**
+     * Base for primitive columns: null cells are marked in a bitmap and
+     * leave a zero in the value array.
+     */
+    private abstract static class PrimitiveColumn extends Column {
+        protected final BitSet nulls = new BitSet();
+
+        protected long nullsSizeBytes() {
+            return nulls.size() / 8;
+        }
+    }
+
+    private static final class IntColumn extends PrimitiveColumn {
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            int value = rs.getInt(index);
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Class<?> type() {
+            return Integer.class;
+        }
+
+        @Override
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long sizeBytes() {
+            return 4L * values.length + nullsSizeBytes();
+        }
+    }
+
+    private static final class LongColumn extends PrimitiveColumn {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            long value = rs.getLong(index);
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Class<?> type() {
+            return Long.class;
+        }
+
+        @Override
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long sizeBytes() {
+            return 8L * values.length + nullsSizeBytes();
+        }
+    }
+
+    private static final class DoubleColumn extends PrimitiveColumn {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            double value = rs.getDouble(index);
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else {
+                values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Class<?> type() {
+            return Double.class;
+        }
+
+        @Override
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long sizeBytes() {
+            return 8L * values.length + nullsSizeBytes();
+        }
+    }
+
+    /**
+     * Text column stored as codes into a dictionary of distinct values, with
+     * -1 for null. Once the dictionary grows past {@link #MAX_DICTIONARY_SIZE}
+     * the column is not worth encoding and falls back to plain strings.
+     */
+    private static final class StringColumn extends Column {
+        private static final int MAX_DICTIONARY_SIZE = 4096;
+
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> lookup = new HashMap<>();
+        private String[] plain;
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            if (plain != null) {
+                if (row == plain.length) {
+                    plain = Arrays.copyOf(plain, row * 2);
+                }
+                plain[row] = value;
+                return;
+            }
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+            if (value == null) {
+                codes[row] = -1;
+                return;
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+                    decode(row);
+                    plain[row] = value;
+                    return;
+                }
+                code = dictionary.size();
+                dictionary.add(value);
+                lookup.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        /**
+         * Switches to plain storage, expanding the {@code rows} cells read
+         * so far.
+         */
+        private void decode(int rows) {
+            plain = new String[codes.length];
+            for (int i = 0; i < rows; i++) {
+                plain[i] = codes[i] < 0 ? null : dictionary.get(codes[i]);
+            }
+            codes = null;
+            dictionary = null;
+            lookup = null;
+        }
+
+        @Override
+        Object get(int row) {
+            if (plain != null) {
+                return plain[row];
+            }
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        Class<?> type() {
+            return String.class;
+        }
+
+        @Override
+        void trim(int rows) {
+            lookup = null;
+            if (plain != null) {
+                plain = Arrays.copyOf(plain, rows);
+            } else {
+                codes = Arrays.copyOf(codes, rows);
+            }
+        }
+
+        @Override
+        long sizeBytes() {
+            if (plain != null) {
+                long size = 8L * plain.length;
+                for (String value : plain) {
+                    size += value == null ? 0 : 40 + 2L * value.length();
+                }
+                return size;
+            }
+            long size = 4L * codes.length;
+            for (String value : dictionary) {
+                size += 48 + 2L * value.length();
+            }
+            return size;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row * 2);
+            }
+            values[row] = rs.getObject(index);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        Class<?> type() {
+            return Object.class;
+        }
+
+        @Override
+        void trim(int rows) {
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long sizeBytes() {
+            return 8L * values.length + 24L * values.length;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package helloswing;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -12,8 +11,14 @@ public class ConnectSQL {
     private static final String DEFAULT_HOST = "localhost";
     private static final String DEFAULT_PORT = "3306";
     private static final int CONNECTION_TIMEOUT = 5000;
+    private static final int POOL_MAX_SIZE = 8;
+    private static final long POOL_BORROW_TIMEOUT = 30000;
+    private static final long POOL_MAX_IDLE = 300000;
+    private static final long POOL_VALIDATION_INTERVAL = 500;
+    private static final int POOL_STATEMENT_CACHE_SIZE = 64;
+    private static final long RESULT_CACHE_MAX_BYTES = 32L * 1024 * 1024;
     
-    private Connection connection;
+    private ConnectionPool pool;
     private static volatile ConnectSQL instance;
     private String host;
     private String port;
@@ -38,54 +43,86 @@ public class ConnectSQL {
         return instance;
     }
 
-    public Connection getConnection(String user, char[] password) throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            return connection;
+    public synchronized Connection getConnection(String user, char[] password) throws SQLException {
+        if (pool == null || pool.isClosed()) {
+            try {
+                Class.forName(DRIVER);
+            } catch (ClassNotFoundException e) {
+                LOGGER.log(Level.SEVERE, "MySQL JDBC Driver not found", e);
+                throw new SQLException("MySQL JDBC Driver not found", e);
+            }
+            String url = buildUrl(host, port);
+            this.username = user;
+            this.password = password != null ? password.clone() : null;
+            ConnectionPool newPool = new ConnectionPool(url, user, password, POOL_MAX_SIZE,
+                POOL_BORROW_TIMEOUT, POOL_MAX_IDLE, POOL_VALIDATION_INTERVAL, POOL_STATEMENT_CACHE_SIZE);
+            try {
+                Connection connection = newPool.borrow();
+                pool = newPool;
+                pool.getResultCache().setMaxBytes(RESULT_CACHE_MAX_BYTES);
+                pool.getMetrics().registerMBean();
+                return connection;
+            } catch (SQLException e) {
+                newPool.close();
+                throw e;
+            }
         }
+        return pool.borrow();
+    }
 
+    private static String buildUrl(String host, String port) {
+        return String.format("jdbc:mysql://%s:%s/?connectTimeout=%d&useServerPrepStmts=true&rewriteBatchedStatements=true",
+            host, port, CONNECTION_TIMEOUT);
+    }
+
+    /**
+     * Opens a pool of at most {@code maxSize} connections to another server,
+     * e.g. the target of a table copy, and checks that it can log in. Unlike
+     * {@link #getConnection(String, char[])} it does not become the
+     * application's connection; the caller closes it.
+     */
+    public static ConnectionPool openPool(String host, String port, String user, char[] password, int maxSize)
+            throws SQLException {
         try {
             Class.forName(DRIVER);
-            String url = String.format("jdbc:mysql://%s:%s/?connectTimeout=%d", 
-                host, port, CONNECTION_TIMEOUT);
-            String passwordStr = new String(password);
-            connection = DriverManager.getConnection(url, user, passwordStr);
-            return connection;
         } catch (ClassNotFoundException e) {
-            LOGGER.log(Level.SEVERE, "MySQL JDBC Driver not found", e);
             throw new SQLException("MySQL JDBC Driver not found", e);
         }
+        ConnectionPool pool = new ConnectionPool(buildUrl(host != null ? host : DEFAULT_HOST, port != null ? port : DEFAULT_PORT),
+            user, password, maxSize, POOL_BORROW_TIMEOUT, POOL_MAX_IDLE, POOL_VALIDATION_INTERVAL, POOL_STATEMENT_CACHE_SIZE);
+        try {
+            pool.borrow().close();
+            return pool;
+        } catch (SQLException e) {
+            pool.close();
+            throw e;
+        }
     }
 
     public Connection getConnection() throws SQLException {
         return getConnection(username, password);
     }
-    
-    public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null;
-                if (password != null) {
-                    java.util.Arrays.fill(password, '0');
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, "Error closing connection", e);
+
+    public synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null || pool.isClosed()) {
+            throw new SQLException("Not connected");
         }
+        return pool;
     }
     
-    public void switchDatabase(String dbName) throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            connection.setCatalog(dbName);
+    public synchronized void closeConnection() {
+        if (pool != null) {
+            pool.getMetrics().unregisterMBean();
+            pool.close();
+            pool = null;
+            if (password != null) {
+                java.util.Arrays.fill(password, '0');
+            }
         }
     }
     
-    public boolean isConnected() {
-        try {
-            return connection != null && !connection.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+    public synchronized boolean isConnected() {
+        return pool != null && !pool.isClosed();
     }
 
     public void setHost(String host) {
@@ -102,14 +139,6 @@ public class ConnectSQL {
         this.port = port;
     }
 
-    private boolean tryReconnect() throws SQLException {
-        if (!isConnected()) {
-            connection = getConnection(username, password);
-            return true;
-        }
-        return false;
-    }
-
     public boolean testConnection() {
         try (Connection testConn = getConnection()) {
             return testConn != null && !testConn.isClosed();
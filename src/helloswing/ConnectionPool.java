@@ -0,0 +1,690 @@
+package helloswing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of MySQL connections. Borrowed connections are proxies whose
+ * {@code close()} hands the physical connection back to the pool, so callers
+ * keep using try-with-resources exactly as with a plain connection.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    /**
+     * MySQL cannot deselect a database, so a connection opened without one
+     * returns to this schema instead, which every account can read.
+     */
+    private static final String NEUTRAL_CATALOG = "information_schema";
+
+    private final String url;
+    private final String user;
+    private final char[] password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long maxIdleMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final QueryMetrics metrics = new QueryMetrics();
+    private final QueryTimeouts timeouts = QueryTimeouts.fromSystemProperties();
+    private final ResultCache resultCache = new ResultCache();
+
+    public ConnectionPool(String url, String user, char[] password, int maxSize,
+            long borrowTimeoutMillis, long maxIdleMillis, long validationIntervalMillis) {
+        this(url, user, password, maxSize, borrowTimeoutMillis, maxIdleMillis, validationIntervalMillis, 0);
+    }
+
+    /**
+     * @param statementCacheSize number of prepared statements cached per
+     *        physical connection, keyed by default schema and SQL text; 0
+     *        disables the cache
+     */
+    public ConnectionPool(String url, String user, char[] password, int maxSize,
+            long borrowTimeoutMillis, long maxIdleMillis, long validationIntervalMillis, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password != null ? password.clone() : new char[0];
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.metrics.setTimeouts(timeouts);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, maxIdleMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        return borrow(null);
+    }
+
+    /**
+     * Borrows a connection whose default schema is {@code catalog}. For
+     * null it is on the pool's default schema: the URL's database, or if the
+     * URL names none, no database or {@value #NEUTRAL_CATALOG}, so
+     * unqualified table names never resolve in a schema a previous borrower
+     * selected.
+     */
+    public Connection borrow(String catalog) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a pooled connection after " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+        PooledConnection pooled = null;
+        try {
+            pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = create();
+            }
+            String target = catalog != null && !catalog.isEmpty() ? catalog : pooled.defaultCatalog();
+            if (target != null && !target.equals(pooled.catalog)) {
+                pooled.physical.setCatalog(target);
+                pooled.catalog = target;
+            }
+            active.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            if (pooled != null) {
+                discard(pooled);
+            }
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            if (isValid(pooled)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            discard(pooled);
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a connection outside the pool with extra driver properties
+     * appended to the pool URL. The caller owns and must close it.
+     */
+    public Connection openDedicated(String extraParameters) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        String dedicatedUrl = url;
+        if (extraParameters != null && !extraParameters.isEmpty()) {
+            dedicatedUrl += (url.contains("?") ? "&" : "?") + extraParameters;
+        }
+        return DriverManager.getConnection(dedicatedUrl, user, new String(password));
+    }
+
+    /**
+     * Opens a connection outside the pool whose statements are metered,
+     * timed out and cancellable like those of a borrowed one. It does not
+     * count against the pool size; closing it closes the physical
+     * connection. The caller owns and must close it.
+     */
+    public Connection openSession() throws SQLException {
+        Connection physical = openDedicated(null);
+        try {
+            return new PooledConnection(physical, true).lease();
+        } catch (SQLException | RuntimeException e) {
+            physical.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Aborts whatever statement is running on the server thread
+     * {@code connectionId}, from a separate connection.
+     */
+    public void killQuery(long connectionId) throws SQLException {
+        try (Connection connection = openDedicated(null);
+                Statement stmt = connection.createStatement()) {
+            stmt.execute("KILL QUERY " + connectionId);
+        }
+        LOGGER.log(Level.INFO, "Killed query on connection {0}", connectionId);
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, new String(password));
+        total.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical, false);
+    }
+
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || !reset(pooled)) {
+                discard(pooled);
+            } else {
+                pooled.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.offerFirst(pooled);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean reset(PooledConnection pooled) {
+        Connection c = pooled.physical;
+        try {
+            if (c.isClosed()) {
+                return false;
+            }
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (c.isReadOnly()) {
+                c.setReadOnly(false);
+            }
+            if (c.getTransactionIsolation() != pooled.initialIsolation) {
+                c.setTransactionIsolation(pooled.initialIsolation);
+            }
+            // Without an initial schema there is none to go back to; the
+            // next borrow without a catalog moves to the neutral one.
+            String catalog = c.getCatalog();
+            if (pooled.initialCatalog != null && !pooled.initialCatalog.isEmpty()
+                    && !pooled.initialCatalog.equals(catalog)) {
+                c.setCatalog(pooled.initialCatalog);
+                catalog = pooled.initialCatalog;
+            }
+            pooled.catalog = catalog;
+            c.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Discarding connection that failed to reset", e);
+            return false;
+        }
+    }
+
+    private void closeSession(PooledConnection session) {
+        try {
+            session.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing session connection", e);
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsed >= maxIdleMillis) {
+                    it.remove();
+                    evictedCount.incrementAndGet();
+                    discard(pooled);
+                }
+            }
+        }
+    }
+
+    private static boolean isClosedQuietly(Statement stmt) {
+        try {
+            return stmt.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public PoolStats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        long borrows = borrowCount.get();
+        return new PoolStats(maxSize, active.get(), idleCount, permits.getQueueLength(), borrows,
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows, maxWaitNanos.get(),
+                createdCount.get(), evictedCount.get(), validationFailures.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    /**
+     * Statement metrics of every connection borrowed from this pool.
+     */
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Query timeouts applied to every statement run on this pool.
+     */
+    public QueryTimeouts getQueryTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Cache of query results read through this pool. Code that writes to a
+     * table must invalidate it here.
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (idle) {
+            idle.forEach(this::discard);
+            idle.clear();
+        }
+        java.util.Arrays.fill(password, '0');
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private final String initialCatalog;
+        private final int initialIsolation;
+        private final Map<String, CachedStatement> statementCache;
+        private final long connectionId;
+        private final boolean session;
+        private String catalog;
+        private long lastUsed;
+
+        PooledConnection(Connection physical, boolean session) throws SQLException {
+            this.physical = physical;
+            this.session = session;
+            this.statementCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    eldest.getValue().evict();
+                    return true;
+                }
+            };
+            this.initialCatalog = physical.getCatalog();
+            this.initialIsolation = physical.getTransactionIsolation();
+            this.connectionId = readConnectionId(physical);
+            this.catalog = initialCatalog;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        private long readConnectionId(Connection physical) {
+            try (Statement stmt = physical.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT CONNECTION_ID()")) {
+                return rs.next() ? rs.getLong(1) : -1;
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Failed to read connection id", e);
+                return -1;
+            }
+        }
+
+        /**
+         * The schema a connection borrowed without one must be on: the
+         * initial one, or none if it never left it.
+         */
+        String defaultCatalog() {
+            if (initialCatalog != null && !initialCatalog.isEmpty()) {
+                return initialCatalog;
+            }
+            return catalog == null || catalog.isEmpty() ? null : NEUTRAL_CATALOG;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new LeaseHandler(this));
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final List<Statement> statements = new ArrayList<>();
+        private volatile PooledConnection pooled;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        /**
+         * Kills the running query only while this lease still holds the
+         * connection, so a later borrower's query is never hit.
+         */
+        private void killQuery() throws SQLException {
+            PooledConnection current = pooled;
+            if (current != null && current.connectionId > 0) {
+                ConnectionPool.this.killQuery(current.connectionId);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (pooled != null) {
+                            PooledConnection returned = pooled;
+                            pooled = null;
+                            closeStatements();
+                            if (returned.session) {
+                                closeSession(returned);
+                            } else {
+                                release(returned);
+                            }
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pooled == null ? "returned" : pooled.physical) + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            PooledConnection current = pooled;
+            if (current == null) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                Object result;
+                if (statementCacheSize > 0 && "prepareStatement".equals(name) && args.length == 1) {
+                    result = prepareCached(current, (String) args[0]);
+                } else {
+                    result = method.invoke(current.physical, args);
+                }
+                if (result instanceof Statement) {
+                    synchronized (this) {
+                        statements.removeIf(ConnectionPool::isClosedQuietly);
+                        statements.add((Statement) result);
+                    }
+                    TaskRunner.track(result instanceof CachedStatementProxy
+                            ? ((CachedStatementProxy) result).physical() : (Statement) result, this::killQuery);
+                    boolean prepared = name.startsWith("prepare") && args != null && args[0] instanceof String;
+                    result = metrics.meter((Statement) result, prepared ? (String) args[0] : null);
+                } else if (result instanceof DatabaseMetaData) {
+                    result = metrics.meter((DatabaseMetaData) result);
+                } else if ("setCatalog".equals(name)) {
+                    current.catalog = (String) args[0];
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * The server resolves unqualified table names when a statement is
+         * prepared, so the same SQL prepared under another default schema
+         * is a different statement.
+         */
+        private PreparedStatement prepareCached(PooledConnection current, String sql) throws SQLException {
+            String key = (current.catalog == null ? "" : current.catalog) + '\0' + sql;
+            CachedStatement cached = current.statementCache.get(key);
+            if (cached != null && !cached.inUse && !cached.physical.isClosed()) {
+                statementCacheHits.incrementAndGet();
+                return cached.open();
+            }
+            statementCacheMisses.incrementAndGet();
+            PreparedStatement physical = current.physical.prepareStatement(sql);
+            if (cached != null && cached.inUse) {
+                return physical;
+            }
+            cached = new CachedStatement(physical);
+            current.statementCache.put(key, cached);
+            return cached.open();
+        }
+
+        private void closeStatements() {
+            for (Statement stmt : statements) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Error closing leaked statement", e);
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    private interface CachedStatementProxy {
+        PreparedStatement physical();
+    }
+
+    /**
+     * A physical prepared statement kept open across leases. Callers get a
+     * proxy whose {@code close()} resets the statement and hands it back to
+     * the cache instead of closing it.
+     */
+    private static final class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        PreparedStatement open() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(CachedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class, CachedStatementProxy.class }, new InvocationHandler() {
+                        private boolean closed;
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            switch (method.getName()) {
+                                case "physical":
+                                    return physical;
+                                case "close":
+                                    if (!closed) {
+                                        closed = true;
+                                        release();
+                                    }
+                                    return null;
+                                case "isClosed":
+                                    return closed || physical.isClosed();
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                default:
+                                    break;
+                            }
+                            if (closed) {
+                                throw new SQLException("Statement is closed");
+                            }
+                            try {
+                                return method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+        }
+
+        private void release() throws SQLException {
+            inUse = false;
+            if (evicted) {
+                physical.close();
+                return;
+            }
+            try {
+                ResultSet rs = physical.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.setFetchSize(0);
+                physical.clearWarnings();
+            } catch (SQLException e) {
+                evicted = true;
+                physical.close();
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    physical.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Error closing evicted statement", e);
+                }
+            }
+        }
+    }
+
+    public static final class PoolStats {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long borrowCount;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+        private final long createdCount;
+        private final long evictedCount;
+        private final long validationFailures;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        PoolStats(int maxSize, int active, int idle, int waiting, long borrowCount, long averageWaitNanos,
+                long maxWaitNanos, long createdCount, long evictedCount, long validationFailures,
+                long statementCacheHits, long statementCacheMisses) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.borrowCount = borrowCount;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.createdCount = createdCount;
+            this.evictedCount = evictedCount;
+            this.validationFailures = validationFailures;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getAverageWaitNanos() { return averageWaitNanos; }
+        public long getMaxWaitNanos() { return maxWaitNanos; }
+        public long getCreatedCount() { return createdCount; }
+        public long getEvictedCount() { return evictedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d max=%d waiting=%d borrows=%d avgWait=%.2fms maxWait=%.2fms created=%d evicted=%d invalid=%d stmtHits=%d stmtMisses=%d",
+                    active, idle, maxSize, waiting, borrowCount, averageWaitNanos / 1e6, maxWaitNanos / 1e6,
+                    createdCount, evictedCount, validationFailures, statementCacheHits, statementCacheMisses);
+        }
+    }
+}
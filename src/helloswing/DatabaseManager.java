@@ -2,52 +2,674 @@ package helloswing;
 
 import java.awt.event.ActionListener;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.swing.JOptionPane;
 import javax.swing.event.TreeSelectionListener;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.StyledDocument;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 
 public class DatabaseManager extends javax.swing.JFrame {
-    private Connection connection;
+    private static final int WORKER_THREADS = 4;
+    private static final String STATUS_LOG_PROPERTY = "helloswing.statusLog";
+    private static final long STATUS_LOG_MAX_BYTES = 10L * 1024 * 1024;
+    private static final int STATUS_LOG_MAX_FILES = 5;
+
+    private final ConnectionPool pool;
     private boolean isLogin;
     private String currentDatabase = null;
     private ActionListener tableComboListener;
     private TreeSelectionListener treeSelectionListener;
     private final DatabaseOperations dbOps;
     private TableOperations tableOps;
+    private final TableImporter importer;
+    private final TableExporter exporter;
+    private final TableCopier copier;
     private StatusLogger statusLogger;
-
-    public DatabaseManager(boolean isLogin, Connection connection) {
+    private DatabaseTreeLoader treeLoader;
+    private final TaskRunner taskRunner = new TaskRunner(WORKER_THREADS);
+    private final MetadataCache metadataCache = new MetadataCache();
+    private javax.swing.JMenuBar menuBar;
+    private javax.swing.JMenu menuData;
+    private javax.swing.JMenuItem miImport;
+    private javax.swing.JMenuItem miExport;
+    private javax.swing.JMenuItem miRunQuery;
+    private javax.swing.JMenuItem miSaveEdits;
+    private javax.swing.JMenuItem miDiscardEdits;
+    private javax.swing.JMenu menuTransaction;
+    private javax.swing.JMenuItem miBegin;
+    private javax.swing.JMenuItem miCommit;
+    private javax.swing.JMenuItem miRollback;
+    private javax.swing.JMenuItem miLockWait;
+    private javax.swing.JLabel lblTransaction;
+    private EditTransaction transaction;
+    private int lockWaitTimeout = Integer.getInteger(EditTransaction.LOCK_WAIT_TIMEOUT_PROPERTY,
+            EditTransaction.DEFAULT_LOCK_WAIT_TIMEOUT);
+    private javax.swing.JMenu menuTools;
+    private javax.swing.JMenuItem miMetrics;
+    private javax.swing.JMenuItem miTimeouts;
+    private MetricsDialog metricsDialog;
+    private TablePager pager;
+    private TableFilterRow filterRow;
+    private javax.swing.JLabel lblTask;
+    private javax.swing.JProgressBar progressTask;
+    private javax.swing.JButton btnStop;
+
+    public DatabaseManager(boolean isLogin, ConnectionPool pool) {
         this.isLogin = isLogin;
-        this.connection = connection;
-        this.dbOps = new DatabaseOperations(connection);
-        this.tableOps = new TableOperations(connection);
+        this.pool = pool;
+        this.dbOps = new DatabaseOperations(pool, metadataCache);
+        this.tableOps = new TableOperations(pool, metadataCache);
+        this.importer = new TableImporter(pool, dbOps, tableOps);
+        this.exporter = new TableExporter(pool);
+        this.copier = new TableCopier(pool, tableOps);
         if (!this.isLogin) {
             new SQLLogin().setVisible(true);
             this.dispose();
         } else {
             initComponents();
+            initMenus();
+            initTaskControls();
+            initGridEditing();
+            initResultCleanup();
             this.statusLogger = new StatusLogger(txtpnStatus);
+            initStatusLogFile();
+            this.treeLoader = new DatabaseTreeLoader(DBTree, dbOps, taskRunner, statusLogger,
+                    new SchemaMetadataLoader(pool, metadataCache));
             loadDatabases();
             loadDatabaseTree();
             setLocationRelativeTo(null);
             addTreeSelectionListener();
+            addTreeMenu();
             statusLogger.logSuccess("Connected to MySQL server successfully!");
         }
     }
 
-    public void loadDatabases() {
+    private void initStatusLogFile() {
+        String logFile = System.getProperty(STATUS_LOG_PROPERTY);
+        if (logFile == null || logFile.isEmpty()) {
+            return;
+        }
         try {
-            List<String> databases = dbOps.getDatabases();
+            statusLogger.setFileSink(java.nio.file.Paths.get(logFile), STATUS_LOG_MAX_BYTES, STATUS_LOG_MAX_FILES);
+        } catch (java.io.IOException e) {
+            DialogUtils.showErrorDialog(this, "Cannot open status log " + logFile + ": " + e.getMessage(), "Error");
+        }
+    }
+
+    private void initMenus() {
+        menuBar = new javax.swing.JMenuBar();
+        menuData = new javax.swing.JMenu("Data");
+        miImport = new javax.swing.JMenuItem("Import CSV/TSV into table...");
+        miImport.setToolTipText("Load a CSV or TSV file into the selected table");
+        miImport.addActionListener(this::miImportActionPerformed);
+        menuData.add(miImport);
+        miRunQuery = new javax.swing.JMenuItem("Run query...");
+        miRunQuery.setToolTipText("Run a SELECT against the selected database and show its whole result in the grid");
+        miRunQuery.addActionListener(this::miRunQueryActionPerformed);
+        menuData.add(miRunQuery);
+        miExport = new javax.swing.JMenuItem("Export results...");
+        miExport.setToolTipText("Write the table or query shown in the grid to a CSV or JSON file (.gz to compress)");
+        miExport.addActionListener(this::miExportActionPerformed);
+        menuData.add(miExport);
+        menuData.addSeparator();
+        miSaveEdits = new javax.swing.JMenuItem("Save grid edits");
+        miSaveEdits.setToolTipText("Write the cells edited in the grid, checking that nobody changed the rows meanwhile");
+        miSaveEdits.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_S,
+                java.awt.Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        miSaveEdits.addActionListener(this::miSaveEditsActionPerformed);
+        menuData.add(miSaveEdits);
+        miDiscardEdits = new javax.swing.JMenuItem("Discard grid edits");
+        miDiscardEdits.addActionListener(this::miDiscardEditsActionPerformed);
+        menuData.add(miDiscardEdits);
+        menuBar.add(menuData);
+        menuTransaction = new javax.swing.JMenu("Transaction");
+        miBegin = new javax.swing.JMenuItem("Begin");
+        miBegin.setToolTipText("Group the following inserts, updates and deletes into one transaction");
+        miBegin.addActionListener(this::miBeginActionPerformed);
+        menuTransaction.add(miBegin);
+        miCommit = new javax.swing.JMenuItem("Commit");
+        miCommit.addActionListener(this::miCommitActionPerformed);
+        menuTransaction.add(miCommit);
+        miRollback = new javax.swing.JMenuItem("Rollback");
+        miRollback.addActionListener(this::miRollbackActionPerformed);
+        menuTransaction.add(miRollback);
+        menuTransaction.addSeparator();
+        miLockWait = new javax.swing.JMenuItem("Lock wait timeout...");
+        miLockWait.setToolTipText("Seconds an edit waits for rows locked by other sessions");
+        miLockWait.addActionListener(this::miLockWaitActionPerformed);
+        menuTransaction.add(miLockWait);
+        menuBar.add(menuTransaction);
+        lblTransaction = new javax.swing.JLabel();
+        lblTransaction.setForeground(new java.awt.Color(180, 90, 0));
+        menuBar.add(lblTransaction);
+        updateTransactionControls();
+        setDefaultCloseOperation(javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                confirmExit();
+            }
+        });
+        menuTools = new javax.swing.JMenu("Tools");
+        miMetrics = new javax.swing.JMenuItem("Statement metrics...");
+        miMetrics.setToolTipText("Latency, rows and bytes per kind of statement (also exposed over JMX)");
+        miMetrics.addActionListener(this::miMetricsActionPerformed);
+        menuTools.add(miMetrics);
+        miTimeouts = new javax.swing.JMenuItem("Query timeouts...");
+        miTimeouts.setToolTipText("Seconds a statement may run before it is killed, per kind of statement");
+        miTimeouts.addActionListener(this::miTimeoutsActionPerformed);
+        menuTools.add(miTimeouts);
+        menuBar.add(menuTools);
+        pager = new TablePager(tblDB, sclpnTableDB, this::countTableRows);
+        filterRow = new TableFilterRow(tblDB, this::requeryTable);
+        menuBar.add(pager);
+        setJMenuBar(menuBar);
+    }
+
+    private void initTaskControls() {
+        lblTask = new javax.swing.JLabel(" ");
+        progressTask = new javax.swing.JProgressBar();
+        progressTask.setMaximumSize(new java.awt.Dimension(160, 18));
+        progressTask.setVisible(false);
+        btnStop = new javax.swing.JButton("Stop");
+        btnStop.setToolTipText("Cancel running statements (KILL QUERY if they do not stop)");
+        btnStop.setEnabled(false);
+        btnStop.addActionListener(this::btnStopActionPerformed);
+        menuBar.add(javax.swing.Box.createHorizontalGlue());
+        menuBar.add(lblTask);
+        menuBar.add(javax.swing.Box.createHorizontalStrut(8));
+        menuBar.add(progressTask);
+        menuBar.add(btnStop);
+        taskRunner.setProgressListener((running, description) -> {
+            boolean busy = running > 0;
+            progressTask.setIndeterminate(busy);
+            progressTask.setVisible(busy);
+            btnStop.setEnabled(busy);
+            lblTask.setText(busy ? description + (running > 1 ? " (+" + (running - 1) + " more)" : "") : " ");
+        });
+    }
+
+    private <T> void runTask(String description, TaskRunner.Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        taskRunner.submit(description, task, onSuccess, onError);
+    }
+
+    /**
+     * As above; {@code onCancel} gets the result of a task stopped by the
+     * user, or null if it did not complete.
+     */
+    private <T> void runTask(String description, TaskRunner.Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onError,
+            Consumer<T> onCancel) {
+        taskRunner.submit(description, task, onSuccess, onError, onCancel);
+    }
+
+    private void btnStopActionPerformed(java.awt.event.ActionEvent evt) {
+        int cancelled = taskRunner.cancelAll();
+        if (cancelled > 0) {
+            statusLogger.log("Cancelled " + cancelled + " running operation(s)");
+        }
+    }
+
+    private void miImportActionPerformed(java.awt.event.ActionEvent evt) {
+        if (currentDatabase == null) {
+            DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_NO_DATABASE, "No Database");
+            return;
+        }
+        String selectedTable = (String) comboboxTableDB.getSelectedItem();
+        if (selectedTable == null) {
+            DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_NO_TABLE, "No Table");
+            return;
+        }
+        javax.swing.JFileChooser chooser = new javax.swing.JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV/TSV files", "csv", "tsv", "tab", "txt"));
+        if (chooser.showOpenDialog(this) != javax.swing.JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        String database = currentDatabase;
+        statusLogger.log("Importing " + file.getFileName() + " into " + selectedTable);
+        runTask("Importing into " + selectedTable, () -> importer.importFile(file, database, selectedTable,
+                message -> javax.swing.SwingUtilities.invokeLater(() -> statusLogger.log(message))), result -> {
+            result.getFailures().forEach(failure -> statusLogger.logError("Import failed for " + failure));
+            result.getWarnings().forEach(warning -> statusLogger.logError("Import warning: " + warning));
+            statusLogger.logSuccess("Imported " + file.getFileName() + " into " + selectedTable + ": " + result);
+            if (result.getRowsFailed() > 0 || result.getRowsSkipped() > 0 || result.getWarningCount() > 0) {
+                DialogUtils.showErrorDialog(this, String.format(
+                        "%d rows of %s were imported, but %d were rejected, %d skipped by the server"
+                        + " (e.g. duplicate keys) and %d warnings were raised.%nSee the status log for details.",
+                        result.getRowsInserted(), file.getFileName(), result.getRowsFailed(), result.getRowsSkipped(),
+                        result.getWarningCount()), "Import Incomplete");
+            }
+            loadTableData(selectedTable);
+        }, e -> {
+            statusLogger.logError("Error importing file: " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error importing file: " + e.getMessage(), "Import Error");
+        });
+    }
+
+    private void miMetricsActionPerformed(java.awt.event.ActionEvent evt) {
+        if (metricsDialog == null) {
+            metricsDialog = new MetricsDialog(this, pool);
+        }
+        metricsDialog.setVisible(true);
+        metricsDialog.toFront();
+    }
+
+    private void miTimeoutsActionPerformed(java.awt.event.ActionEvent evt) {
+        QueryTimeouts timeouts = pool.getQueryTimeouts();
+        QueryMetrics.Operation[] operations = QueryMetrics.Operation.values();
+        javax.swing.JPanel panel = new javax.swing.JPanel(new java.awt.GridLayout(0, 2, 8, 4));
+        javax.swing.JSpinner[] spinners = new javax.swing.JSpinner[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            spinners[i] = new javax.swing.JSpinner(new javax.swing.SpinnerNumberModel(timeouts.get(operations[i]), 0, 86400, 10));
+            panel.add(new javax.swing.JLabel(operations[i] + " (seconds, 0 = none)"));
+            panel.add(spinners[i]);
+        }
+        int choice = javax.swing.JOptionPane.showConfirmDialog(this, panel, "Query Timeouts",
+                javax.swing.JOptionPane.OK_CANCEL_OPTION, javax.swing.JOptionPane.PLAIN_MESSAGE);
+        if (choice != javax.swing.JOptionPane.OK_OPTION) {
+            return;
+        }
+        for (int i = 0; i < operations.length; i++) {
+            timeouts.set(operations[i], (Integer) spinners[i].getValue());
+        }
+        statusLogger.log("Query timeouts updated");
+    }
+
+    /**
+     * Highlights edited cells that have not been saved yet.
+     */
+    private void initGridEditing() {
+        java.awt.Color dirtyBackground = new java.awt.Color(255, 240, 170);
+        tblDB.setDefaultRenderer(Object.class, new javax.swing.table.DefaultTableCellRenderer() {
+            @Override
+            public java.awt.Component getTableCellRendererComponent(javax.swing.JTable table, Object value,
+                    boolean isSelected, boolean hasFocus, int row, int column) {
+                java.awt.Component cell = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                if (!isSelected) {
+                    boolean dirty = table.getModel() instanceof PagedTableModel && ((PagedTableModel) table.getModel())
+                            .isDirty(table.convertRowIndexToModel(row), table.convertColumnIndexToModel(column));
+                    cell.setBackground(dirty ? dirtyBackground : table.getBackground());
+                }
+                return cell;
+            }
+        });
+        updateEditControls();
+    }
+
+    /**
+     * Deletes the spill file of a query result once the grid shows
+     * something else.
+     */
+    private void initResultCleanup() {
+        tblDB.addPropertyChangeListener("model", e -> {
+            if (e.getOldValue() instanceof SpillableTableModel) {
+                try {
+                    ((SpillableTableModel) e.getOldValue()).close();
+                } catch (java.io.IOException ex) {
+                    statusLogger.logError("Failed to delete query result spill file: " + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private void updateEditControls() {
+        int dirty = tblDB.getModel() instanceof PagedTableModel ? ((PagedTableModel) tblDB.getModel()).getDirtyRowCount() : 0;
+        miSaveEdits.setEnabled(dirty > 0);
+        miDiscardEdits.setEnabled(dirty > 0);
+        miSaveEdits.setText(dirty > 0 ? "Save grid edits (" + dirty + " rows)" : "Save grid edits");
+    }
+
+    /**
+     * Asks before unsaved grid edits are thrown away by showing other rows.
+     */
+    private boolean confirmDiscardEdits() {
+        if (!(tblDB.getModel() instanceof PagedTableModel)) {
+            return true;
+        }
+        int dirty = ((PagedTableModel) tblDB.getModel()).getDirtyRowCount();
+        return dirty == 0 || DialogUtils.showConfirmDialog(this, "Discard unsaved edits of " + dirty + " rows?",
+                "Unsaved Edits") == JOptionPane.YES_OPTION;
+    }
+
+    private void miSaveEditsActionPerformed(java.awt.event.ActionEvent evt) {
+        if (tblDB.isEditing()) {
+            tblDB.getCellEditor().stopCellEditing();
+        }
+        if (!(tblDB.getModel() instanceof PagedTableModel)) {
+            return;
+        }
+        PagedTableModel model = (PagedTableModel) tblDB.getModel();
+        List<PagedTableModel.RowEdit> edits = model.getPendingEdits();
+        if (edits.isEmpty()) {
+            statusLogger.log("No grid edits to save");
+            return;
+        }
+        String database = model.getDatabase();
+        String table = model.getTable();
+        EditTransaction tx = transaction;
+        List<PagedTableModel.RowEdit> conflicts = new ArrayList<>();
+        runTask("Saving " + edits.size() + " edited rows of " + table, () -> runEdit(tx, database, table, connection -> {
+            conflicts.addAll(tableOps.saveRowEdits(connection, table, edits));
+            return edits.size() - conflicts.size();
+        }), saved -> {
+            List<PagedTableModel.RowEdit> written = new ArrayList<>(edits);
+            written.removeAll(conflicts);
+            model.editsSaved(written);
+            if (tx != null) {
+                updateTransactionControls();
+            }
+            statusLogger.logSuccess("Saved " + saved + " edited rows of " + table + (tx != null ? ", pending until Commit" : ""));
+            if (!conflicts.isEmpty()) {
+                reportEditConflicts(table, conflicts);
+            }
+        }, e -> {
+            statusLogger.logError("Error saving edits of " + table + ": " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error saving edits of " + table + ": " + e.getMessage()
+                    + "\nNothing was saved; the edits are kept.", "Save Error");
+        });
+    }
+
+    private void reportEditConflicts(String table, List<PagedTableModel.RowEdit> conflicts) {
+        StringBuilder message = new StringBuilder(String.format(
+                "%d rows of %s were changed or deleted by someone else since they were read:%n", conflicts.size(), table));
+        for (int i = 0; i < conflicts.size(); i++) {
+            PagedTableModel.RowEdit conflict = conflicts.get(i);
+            statusLogger.logError("Not saved, row " + conflict.getKey() + " of " + table + " changed on the server");
+            if (i < 20) {
+                message.append("  ").append(conflict.getKey()).append(System.lineSeparator());
+            }
+        }
+        if (conflicts.size() > 20) {
+            message.append("  ...").append(System.lineSeparator());
+        }
+        message.append("Their edits were not saved and are kept; reload the table to see the current values.");
+        DialogUtils.showErrorDialog(this, message.toString(), "Save Conflicts");
+    }
+
+    private void miDiscardEditsActionPerformed(java.awt.event.ActionEvent evt) {
+        if (tblDB.getModel() instanceof PagedTableModel && confirmDiscardEdits()) {
+            if (tblDB.isEditing()) {
+                tblDB.getCellEditor().cancelCellEditing();
+            }
+            ((PagedTableModel) tblDB.getModel()).discardEdits();
+            statusLogger.log("Discarded grid edits");
+        }
+    }
+
+    private void miBeginActionPerformed(java.awt.event.ActionEvent evt) {
+        miBegin.setEnabled(false);
+        int timeout = lockWaitTimeout;
+        runTask("Starting transaction", () -> EditTransaction.begin(pool, timeout), started -> {
+            transaction = started;
+            updateTransactionControls();
+            statusLogger.log("Transaction started: edits are pending until Commit");
+        }, e -> {
+            updateTransactionControls();
+            statusLogger.logError("Error starting transaction: " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error starting transaction: " + e.getMessage(), "Transaction Error");
+        }, started -> {
+            updateTransactionControls();
+            if (started != null) {
+                runTask("Closing stopped transaction", () -> {
+                    started.rollback();
+                    return null;
+                }, closed -> { }, e -> statusLogger.logError("Error closing stopped transaction: " + e.getMessage()));
+            }
+            statusLogger.log("Transaction not started");
+        });
+    }
+
+    private void miCommitActionPerformed(java.awt.event.ActionEvent evt) {
+        EditTransaction committing = transaction;
+        int changes = committing.getPendingChanges();
+        runTask("Committing " + changes + " changes", () -> {
+            committing.commit();
+            return changes;
+        }, committed -> {
+            transaction = null;
+            updateTransactionControls();
+            statusLogger.logSuccess("Committed " + committed + " changes");
+            reloadPagedModel();
+        }, e -> {
+            statusLogger.logError("Error committing transaction: " + e.getMessage());
+            if (committing.isRolledBack()) {
+                transactionRolledBack(committing);
+                DialogUtils.showErrorDialog(this, "Error committing transaction: " + e.getMessage()
+                        + "\nThe server rolled back the transaction; its " + changes + " pending changes were discarded.",
+                        "Transaction Error");
+                return;
+            }
+            DialogUtils.showErrorDialog(this, "Error committing transaction: " + e.getMessage()
+                    + "\nThe transaction is still open; roll it back or try again.", "Transaction Error");
+        }, committed -> {
+            if (committed != null) {
+                transaction = null;
+                updateTransactionControls();
+                statusLogger.logSuccess("Committed " + committed + " changes before the stop took effect");
+                reloadPagedModel();
+            } else if (committing.isRolledBack()) {
+                transactionRolledBack(committing);
+            } else {
+                updateTransactionControls();
+                statusLogger.log("Commit stopped; the transaction is still open");
+            }
+        });
+    }
+
+    private void miRollbackActionPerformed(java.awt.event.ActionEvent evt) {
+        EditTransaction rollingBack = transaction;
+        int changes = rollingBack.getPendingChanges();
+        if (changes > 0 && DialogUtils.showConfirmDialog(this, "Discard " + changes + " pending changes?",
+                "Confirm Rollback") != JOptionPane.YES_OPTION) {
+            return;
+        }
+        transaction = null;
+        updateTransactionControls();
+        runTask("Rolling back", () -> {
+            rollingBack.rollback();
+            return changes;
+        }, discarded -> {
+            statusLogger.log("Rolled back " + discarded + " changes");
+        }, e -> {
+            statusLogger.logError("Error rolling back transaction (its connection was closed): " + e.getMessage());
+        });
+    }
+
+    private void miLockWaitActionPerformed(java.awt.event.ActionEvent evt) {
+        javax.swing.JSpinner spinner = new javax.swing.JSpinner(new javax.swing.SpinnerNumberModel(lockWaitTimeout, 1, 3600, 5));
+        javax.swing.JPanel panel = new javax.swing.JPanel(new java.awt.GridLayout(0, 2, 8, 4));
+        panel.add(new javax.swing.JLabel("Lock wait timeout (seconds)"));
+        panel.add(spinner);
+        int choice = javax.swing.JOptionPane.showConfirmDialog(this, panel, "Lock Wait Timeout",
+                javax.swing.JOptionPane.OK_CANCEL_OPTION, javax.swing.JOptionPane.PLAIN_MESSAGE);
+        if (choice != javax.swing.JOptionPane.OK_OPTION) {
+            return;
+        }
+        lockWaitTimeout = (Integer) spinner.getValue();
+        EditTransaction current = transaction;
+        if (current == null) {
+            statusLogger.log("Lock wait timeout set to " + lockWaitTimeout + " s");
+            return;
+        }
+        int timeout = lockWaitTimeout;
+        runTask("Setting lock wait timeout", () -> {
+            current.setLockWaitTimeout(timeout);
+            return timeout;
+        }, set -> statusLogger.log("Lock wait timeout set to " + set + " s"),
+            e -> statusLogger.logError("Error setting lock wait timeout: " + e.getMessage()));
+    }
+
+    /**
+     * Exits unless the user keeps the window open to commit an open
+     * transaction. Running tasks are stopped first, then the transaction is
+     * rolled back and the pool closed, so the server sees clean disconnects.
+     */
+    private void confirmExit() {
+        EditTransaction tx = transaction;
+        if (tx != null && tx.getPendingChanges() > 0 && DialogUtils.showConfirmDialog(this,
+                "Exit and roll back " + tx.getPendingChanges() + " uncommitted changes?",
+                "Open Transaction") != JOptionPane.YES_OPTION) {
+            return;
+        }
+        taskRunner.shutdown();
+        if (tx != null) {
+            transaction = null;
+            try {
+                tx.rollback();
+            } catch (SQLException e) {
+                // The server rolls it back when the connection drops.
+            }
+        }
+        pool.close();
+        dispose();
+        System.exit(0);
+    }
+
+    private void updateTransactionControls() {
+        boolean open = transaction != null;
+        miBegin.setEnabled(!open);
+        miCommit.setEnabled(open);
+        miRollback.setEnabled(open);
+        if (open) {
+            lblTransaction.setText(String.format("  In transaction: %d pending changes (%,d rows)  ",
+                    transaction.getPendingChanges(), transaction.getPendingRows()));
+        } else {
+            lblTransaction.setText("");
+        }
+    }
+
+    /**
+     * Runs an edit of {@code table} in the open transaction, if any, or on
+     * its own with autocommit. Called from a background task.
+     */
+    private int runEdit(EditTransaction tx, String database, String table, EditTransaction.Edit edit) throws SQLException {
+        if (tx != null) {
+            try {
+                return tx.execute(database, table, edit);
+            } catch (SQLException e) {
+                if (tx.isRolledBack()) {
+                    javax.swing.SwingUtilities.invokeLater(() -> transactionRolledBack(tx));
+                }
+                throw e;
+            }
+        }
+        try (Connection connection = pool.borrow(database)) {
+            return edit.run(connection);
+        }
+    }
+
+    /**
+     * Ends the transaction in the UI after the server rolled it back. The
+     * failing edit reports the error itself.
+     */
+    private void transactionRolledBack(EditTransaction tx) {
+        if (transaction == tx) {
+            transaction = null;
+            updateTransactionControls();
+            statusLogger.logError("The server rolled back the transaction; its pending changes were discarded");
+        }
+    }
+
+    /**
+     * Shows the result of an edit: the table is reloaded in autocommit
+     * mode, while in a transaction the pending count is updated instead,
+     * since the grid reads committed rows only.
+     */
+    private void editFinished(EditTransaction tx, String table) {
+        if (tx == null) {
+            loadTableData(table);
+            return;
+        }
+        updateTransactionControls();
+        statusLogger.log("Change to " + table + " pending until Commit");
+    }
+
+    private void reloadPagedModel() {
+        if (tblDB.getModel() instanceof PagedTableModel) {
+            requeryTable(((PagedTableModel) tblDB.getModel()).getView());
+        }
+    }
+
+    /**
+     * Runs a query typed by the user. Its result may join or aggregate and
+     * has no key to page by, so it is read whole into a columnar model.
+     */
+    private void miRunQueryActionPerformed(java.awt.event.ActionEvent evt) {
+        if (currentDatabase == null) {
+            DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_NO_DATABASE, "No Database");
+            return;
+        }
+        String query = DialogUtils.showQueryDialog(this);
+        if (query == null || !confirmDiscardEdits()) {
+            return;
+        }
+        QueryMetrics.Operation operation = QueryMetrics.classify(query);
+        if (operation != QueryMetrics.Operation.SELECT && operation != QueryMetrics.Operation.METADATA) {
+            DialogUtils.showErrorDialog(this, "Only statements that return rows can be run here", "Query Error");
+            return;
+        }
+        String database = currentDatabase;
+        long start = System.currentTimeMillis();
+        runTask("Running query", () -> dbOps.executeSelectQuery(database, query), model -> {
+            showResultModel(model);
+            statusLogger.logSuccess("Executed query: " + query + " (" + model.getRowCount() + " rows in "
+                    + (System.currentTimeMillis() - start) + " ms)");
+            if (model.isSpilled()) {
+                statusLogger.log(model.getSpilledRowCount() + " rows past the first "
+                        + (model.getRowCount() - model.getSpilledRowCount()) + " were spilled to a temporary file");
+            }
+        }, e -> {
+            statusLogger.logError("Error executing query: " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error executing query: " + e.getMessage(), "Query Error");
+        });
+    }
+
+    /**
+     * Shows a read-only result. One held in memory is sorted locally; a
+     * result spilled to disk is not, since sorting would read every row back.
+     */
+    private void showResultModel(javax.swing.table.TableModel model) {
+        tblDB.setModel(model);
+        boolean spilled = model instanceof SpillableTableModel && ((SpillableTableModel) model).isSpilled();
+        tblDB.setRowSorter(spilled ? null : new javax.swing.table.TableRowSorter<>(model));
+        updateEditControls();
+        filterRow.setModel(null, sclpnTableDB);
+        pager.setModel(null);
+    }
+
+    private void miExportActionPerformed(java.awt.event.ActionEvent evt) {
+        if (!(tblDB.getModel() instanceof PagedTableModel)) {
+            DialogUtils.showErrorDialog(this, "Open a table in the grid first", "Nothing to Export");
+            return;
+        }
+        PagedTableModel model = (PagedTableModel) tblDB.getModel();
+        javax.swing.JFileChooser chooser = new javax.swing.JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV/JSON files (optionally .gz)", "csv", "json", "gz"));
+        chooser.setSelectedFile(new java.io.File(model.getTable() + ".csv"));
+        if (chooser.showSaveDialog(this) != javax.swing.JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        List<Object> params = new ArrayList<>();
+        String query = model.getQuery(params);
+        statusLogger.log("Exporting " + query + (params.isEmpty() ? "" : " with " + params) + " to " + file.getFileName());
+        long start = System.currentTimeMillis();
+        runTask("Exporting " + model.getTable(), () -> exporter.export(model.getDatabase(), query, params, file,
+                message -> javax.swing.SwingUtilities.invokeLater(() -> statusLogger.log(message))), rows -> {
+            statusLogger.logSuccess("Exported " + rows + " rows to " + file + " in " + (System.currentTimeMillis() - start) + " ms");
+        }, e -> {
+            statusLogger.logError("Error exporting results: " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error exporting results: " + e.getMessage(), "Export Error");
+        });
+    }
+
+    public void loadDatabases() {
+        runTask("Loading databases", dbOps::getDatabases, databases -> {
             comboboxDB.removeAllItems();
             databases.stream()
                     .filter(dbName -> !DatabaseConstants.SYSTEM_DATABASES.contains(dbName))
@@ -55,10 +677,10 @@ public class DatabaseManager extends javax.swing.JFrame {
             statusLogger.logSuccess("Loaded database list successfully");            
             this.toFront();
             pack();
-        } catch (SQLException e) {
+        }, e -> {
             statusLogger.logError("Failed to load databases: " + e.getMessage());
             DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_CONNECTION, "Error");
-        }
+        });
     }
 
     private void loadTables(String database) {
@@ -71,30 +693,14 @@ public class DatabaseManager extends javax.swing.JFrame {
             statusLogger.logError(DatabaseConstants.ERROR_NO_DATABASE);
             return;
         }
-        try {
-            List<String> tables = dbOps.getTables(database);
+        runTask("Loading tables of " + database, () -> dbOps.getTables(database), tables -> {
+            comboboxTableDB.removeAllItems();
             tables.forEach(comboboxTableDB::addItem);
             statusLogger.logSuccess("Loaded tables for database: " + database);
-        } catch (SQLException e) {
+        }, e -> {
             statusLogger.logError("Failed to load tables: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Failed to load tables: " + e.getMessage(), "Error");
-        }
-    }
-
-    private List<String> getTables(String database) throws SQLException {
-        if (database == null || database.trim().isEmpty()) {
-            statusLogger.logError(DatabaseConstants.ERROR_NO_DATABASE);
-            return Collections.emptyList();
-        }
-        try {
-            List<String> tables = dbOps.getTables(database);
-            statusLogger.logSuccess("Loaded tables for database: " + database);
-            return tables;
-        } catch (SQLException e) {
-            statusLogger.logError("Failed to load tables: " + e.getMessage());
-            DialogUtils.showErrorDialog(this, "Failed to load tables: " + e.getMessage(), "Error");
-            throw e;
-        }
+        });
     }
 
     private void loadTableData(String tableName) {
@@ -102,86 +708,220 @@ public class DatabaseManager extends javax.swing.JFrame {
             statusLogger.logError("Please select a database first");
             return;
         }
-        try {
-            ResultSet rs = dbOps.getTableData(connection, currentDatabase, tableName);
-            try {
-                DefaultTableModel model = tableOps.createTableModel(rs);
-                tblDB.setModel(model);
-                tblDB.setFont(new java.awt.Font("Segoe UI", 0, 18));
-                tblDB.setRowHeight(30);
-                tblDB.setAutoResizeMode(javax.swing.JTable.AUTO_RESIZE_ALL_COLUMNS);
-                statusLogger.logSuccess("Successfully loaded " + tableName + " of " + currentDatabase + "!");
-            } finally {
-                rs.close();
-            }
-        } catch (SQLException e) {
+        if (!confirmDiscardEdits()) {
+            return;
+        }
+        String database = currentDatabase;
+        runTask("Loading " + tableName, () -> openPagedModel(database, tableName, "*"), model -> {
+            showPagedModel(model);
+            tblDB.setFont(new java.awt.Font("Segoe UI", 0, 18));
+            tblDB.setRowHeight(30);
+            tblDB.setAutoResizeMode(javax.swing.JTable.AUTO_RESIZE_ALL_COLUMNS);
+            statusLogger.logSuccess("Successfully loaded " + tableName + " of " + database + "!");
+        }, e -> {
             statusLogger.logError("Error loading table: " + tableName + "\nError: " + e.getMessage());
-            DialogUtils.showErrorDialog(this, "Failed to load table " + tableName + " of " + currentDatabase + ": " + e.getMessage(), "Error");
+            DialogUtils.showErrorDialog(this, "Failed to load table " + tableName + " of " + database + ": " + e.getMessage(), "Error");
+        });
+    }
+
+    /**
+     * Opens a paged view of {@code table} with the server's row estimate.
+     * Runs in a background task.
+     */
+    private PagedTableModel openPagedModel(String database, String table, String columns) throws SQLException {
+        return openPagedModel(database, table, columns, GridQuery.NONE);
+    }
+
+    /**
+     * As above, filtered and sorted on the server by {@code view}; the
+     * estimate is only used while nothing is filtered out.
+     */
+    private PagedTableModel openPagedModel(String database, String table, String columns, GridQuery view)
+            throws SQLException {
+        List<String> primaryKey = tableOps.getPrimaryKeyColumns(database, table);
+        PagedTableModel model = PagedTableModel.open(pool, taskRunner, database, table, columns, primaryKey, view);
+        if (!model.isExhausted() && !view.isFiltered()) {
+            model.setEstimatedRowCount(tableOps.estimateRowCount(database, table));
         }
+        return model;
     }
 
-    private void loadDatabaseTree() {
-        DefaultMutableTreeNode root = new DefaultMutableTreeNode("Databases");
-        try {
-            List<String> databases = dbOps.getDatabases();
-            for (String dbName : databases) {
-                if (!DatabaseConstants.SYSTEM_DATABASES.contains(dbName)) {
-                    DefaultMutableTreeNode dbNode = new DefaultMutableTreeNode(dbName);
-                    root.add(dbNode);
-                    List<String> tables = dbOps.getTables(dbName);
-                    for (String tableName : tables) {
-                        dbNode.add(new DefaultMutableTreeNode(tableName));
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            DialogUtils.showErrorDialog(this, "Failed to load database tree: " + e.getMessage(), "Error");
+    private void showPagedModel(PagedTableModel model) {
+        model.setErrorHandler(e -> statusLogger.logError("Error fetching rows of " + model.getTable() + ": " + e.getMessage()));
+        model.addTableModelListener(e -> updateEditControls());
+        tblDB.setModel(model);
+        tblDB.setRowSorter(new ServerRowSorter(model, this::requeryTable));
+        updateEditControls();
+        filterRow.setModel(model, sclpnTableDB);
+        pager.setModel(model);
+    }
+
+    /**
+     * Reopens the table shown in the grid with other filters or sorting.
+     */
+    private void requeryTable(GridQuery view) {
+        if (!confirmDiscardEdits()) {
+            return;
         }
-        DBTree.setModel(new DefaultTreeModel(root));
+        PagedTableModel current = (PagedTableModel) tblDB.getModel();
+        String database = current.getDatabase();
+        String table = current.getTable();
+        runTask("Loading " + table, () -> openPagedModel(database, table, current.getColumns(), view), model -> {
+            showPagedModel(model);
+            statusLogger.log("Loaded " + table + (view.isFiltered() ? " filtered by " + view.getFilters() : "")
+                + (view.isSorted() ? " sorted by " + view.getSortColumn() + (view.isDescending() ? " DESC" : "") : ""));
+        }, e -> {
+            statusLogger.logError("Error loading " + table + ": " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error loading " + table + ": " + e.getMessage(), "Query Error");
+        });
+    }
+
+    private void countTableRows(PagedTableModel model) {
+        runTask("Counting rows of " + model.getTable(), () -> tableOps.countRows(model.getDatabase(), model.getTable(), model.getView()), count -> {
+            model.setExactRowCount(count);
+            pager.countFinished();
+            statusLogger.log(String.format("%s has %,d rows", model.getTable(), count));
+        }, e -> {
+            pager.countFinished();
+            statusLogger.logError("Error counting rows of " + model.getTable() + ": " + e.getMessage());
+        }, count -> pager.countFinished());
+    }
+
+    private void loadDatabaseTree() {
+        treeLoader.load();
     }
 
     private void handleDatabaseSelection(String database) {
-        try {
-            if (database != null && !database.isEmpty()) {
-                try (Statement stmt = connection.createStatement()) {
-                    stmt.execute("USE " + database);
-                    currentDatabase = database;
-                    loadTables(database);
-                    statusLogger.logSuccess("Database selected: " + database);
-                }
+        handleDatabaseSelection(database, null);
+    }
+
+    private void handleDatabaseSelection(String database, Runnable afterSelection) {
+        if (database == null || database.isEmpty()) {
+            return;
+        }
+        // Checked against the cached schema list; the first borrow of the
+        // database reports anything else.
+        runTask("Selecting " + database, () -> {
+            if (!dbOps.getDatabases().contains(database)) {
+                throw new SQLException("Unknown database '" + database + "'");
             }
-        } catch (SQLException e) {
+            return database;
+        }, selected -> {
+            currentDatabase = database;
+            loadTables(database);
+            statusLogger.logSuccess("Database selected: " + database);
+            if (afterSelection != null) {
+                afterSelection.run();
+            }
+        }, e -> {
             statusLogger.logError("Error selecting database: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Error selecting database: " + e.getMessage(), "Error");
-        }
+        });
     }
 
     private void addTreeSelectionListener() {
         treeSelectionListener = e -> {
             DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) DBTree.getLastSelectedPathComponent();
-            if (selectedNode == null) return;
+            if (selectedNode == null || DatabaseTreeLoader.isPlaceholder(selectedNode)) return;
             if (selectedNode.getLevel() == 1) {
                 String selectedDatabase = selectedNode.getUserObject().toString();
                 handleDatabaseSelection(selectedDatabase);
             } else if (selectedNode.getLevel() == 2) {
                 DefaultMutableTreeNode parentNode = (DefaultMutableTreeNode) selectedNode.getParent();
                 String selectedDatabase = parentNode.getUserObject().toString();
-                handleDatabaseSelection(selectedDatabase);
                 String selectedTable = selectedNode.getUserObject().toString();
-                loadTableData(selectedTable);
+                handleDatabaseSelection(selectedDatabase, () -> loadTableData(selectedTable));
             }
         };
         DBTree.addTreeSelectionListener(treeSelectionListener);
     }
 
-    private void removeTreeSelectionListener() {
-        if (treeSelectionListener != null) {
-            DBTree.removeTreeSelectionListener(treeSelectionListener);
-            treeSelectionListener = null;
+    /**
+     * Right-clicking a table in the tree offers to copy it; the click does
+     * not select the table, so it is not loaded into the grid.
+     */
+    private void addTreeMenu() {
+        DBTree.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mousePressed(java.awt.event.MouseEvent e) {
+                showTreeMenu(e);
+            }
+
+            @Override
+            public void mouseReleased(java.awt.event.MouseEvent e) {
+                showTreeMenu(e);
+            }
+
+            private void showTreeMenu(java.awt.event.MouseEvent e) {
+                if (!e.isPopupTrigger()) {
+                    return;
+                }
+                javax.swing.tree.TreePath path = DBTree.getPathForLocation(e.getX(), e.getY());
+                if (path == null) {
+                    return;
+                }
+                DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
+                if (node.getLevel() != 2 || DatabaseTreeLoader.isPlaceholder(node)) {
+                    return;
+                }
+                String database = ((DefaultMutableTreeNode) node.getParent()).getUserObject().toString();
+                String table = node.getUserObject().toString();
+                javax.swing.JPopupMenu menu = new javax.swing.JPopupMenu();
+                javax.swing.JMenuItem miCopyTable = new javax.swing.JMenuItem("Copy table to...");
+                miCopyTable.addActionListener(evt -> copyTable(database, table));
+                menu.add(miCopyTable);
+                menu.show(DBTree, e.getX(), e.getY());
+            }
+        });
+    }
+
+    private void copyTable(String database, String table) {
+        String[] databases = new String[comboboxDB.getItemCount()];
+        for (int i = 0; i < databases.length; i++) {
+            databases[i] = comboboxDB.getItemAt(i);
         }
+        Map<String, Object> options = DialogUtils.showCopyTableDialog(this, table, databases, database);
+        if (options.isEmpty()) {
+            return;
+        }
+        String targetDatabase = (String) options.get("database");
+        String targetTable = (String) options.get("table");
+        int workers = (Integer) options.get("workers");
+        int chunkRows = (Integer) options.get("chunkRows");
+        String host = (String) options.get("host");
+        String port = (String) options.get("port");
+        String user = (String) options.get("user");
+        char[] password = (char[]) options.get("password");
+        String target = (host != null ? host + ":" + port + "/" : "") + targetDatabase + "." + targetTable;
+        statusLogger.log("Copying " + database + "." + table + " to " + target);
+        Consumer<String> progress = message -> javax.swing.SwingUtilities.invokeLater(() -> statusLogger.log(message));
+        runTask("Copying " + table, () -> {
+            if (host == null) {
+                return copier.copy(database, table, targetDatabase, targetTable, workers, chunkRows, progress);
+            }
+            try (ConnectionPool targetPool = ConnectSQL.openPool(host, port, user, password, 1)) {
+                return copier.copyToServer(database, table, targetPool, targetDatabase, targetTable, chunkRows, progress);
+            } finally {
+                java.util.Arrays.fill(password, '0');
+            }
+        }, result -> {
+            if (host == null) {
+                metadataCache.invalidateTable(targetDatabase, targetTable);
+                if (targetDatabase.equals(currentDatabase)) {
+                    loadTables(targetDatabase);
+                }
+            }
+            statusLogger.logSuccess("Copied " + database + "." + table + " to " + target + ": " + result);
+        }, e -> {
+            statusLogger.logError("Error copying " + table + " to " + target + ": " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Error copying " + table + ": " + e.getMessage()
+                    + "\nRows copied before the error remain in " + target + ".", "Copy Error");
+        });
     }
-    
+
     public void refreshComboBoxes() {
+        metadataCache.invalidateAll();
+        pool.getResultCache().invalidateAll();
         loadDatabases();
         String selectedDatabase = (String) comboboxDB.getSelectedItem();
         if (selectedDatabase != null) {
@@ -543,10 +1283,10 @@ public class DatabaseManager extends javax.swing.JFrame {
     }// </editor-fold>//GEN-END:initComponents
 
     private void btnRefreshTreeActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRefreshTreeActionPerformed
+        metadataCache.invalidateAll();
+        pool.getResultCache().invalidateAll();
         loadDatabases();
-        addTreeSelectionListener(); 
         loadDatabaseTree();
-        removeTreeSelectionListener();
     }//GEN-LAST:event_btnRefreshTreeActionPerformed
 
     private void btnRefreshComboboxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRefreshComboboxActionPerformed
@@ -556,20 +1296,21 @@ public class DatabaseManager extends javax.swing.JFrame {
     private void btnNewActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnNewActionPerformed
         String dbName = DialogUtils.showInputDialog(this, DatabaseConstants.PROMPT_NEW_DB, "New Database");
         if (dbName != null && !dbName.trim().isEmpty()) {
-            try {
-                if (!dbName.matches("^[a-zA-Z0-9_]+$")) {
-                    DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_INVALID_NAME, "Invalid Name");
-                    return;
-                }
-                DatabaseOperations dbOps = new DatabaseOperations(connection);
+            if (!dbName.matches("^[a-zA-Z0-9_]+$")) {
+                DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_INVALID_NAME, "Invalid Name");
+                return;
+            }
+            runTask("Creating database " + dbName, () -> {
                 dbOps.createDatabase(dbName);
+                return dbName;
+            }, created -> {
                 loadDatabases();
                 statusLogger.logSuccess(String.format(DatabaseConstants.SUCCESS_CREATE, dbName));
                 DialogUtils.showInfoDialog(this, String.format(DatabaseConstants.SUCCESS_CREATE, dbName), "Success");
-            } catch (SQLException e) {
+            }, e -> {
                 statusLogger.logError(String.format(DatabaseConstants.ERROR_CONNECTION, e.getMessage()));
                 DialogUtils.showErrorDialog(this, String.format(DatabaseConstants.ERROR_CONNECTION, e.getMessage()), "Error");
-            }
+            });
         }
     }//GEN-LAST:event_btnNewActionPerformed
 
@@ -588,42 +1329,61 @@ public class DatabaseManager extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, DatabaseConstants.ERROR_NO_SELECTION, "No Selection");
             return;
         }
-        try {
-            tableOps.updateRecordWithPrompt(connection, currentDatabase, selectedTable, tblDB, selectedRow, this);
-            loadTableData(selectedTable);
-            statusLogger.logSuccess(String.format(DatabaseConstants.SUCCESS_UPDATE, selectedTable));
-            statusLogger.logSuccess("Updated record in " + selectedTable);
-            DialogUtils.showInfoDialog(this, "Record updated successfully!", "Success");
-        } catch (SQLException e) {
+        String database = currentDatabase;
+        Consumer<Exception> onError = e -> {
             statusLogger.logError(String.format(DatabaseConstants.ERROR_UPDATE, e.getMessage()));
             statusLogger.logError("Error updating record: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Error updating record: " + e.getMessage(), "Update Error");
-        }
+        };
+        runTask("Describing " + selectedTable, () -> tableOps.describeTable(database, selectedTable), columns -> {
+            Map<String, Object> rowValues = tableOps.getRowValues(columns, tblDB, selectedRow);
+            if (rowValues.isEmpty()) {
+                DialogUtils.showErrorDialog(this, "The grid does not show any column of " + selectedTable, "Update Error");
+                return;
+            }
+            Map<String, Object> data = tableOps.promptUpdateValues(columns, rowValues, this);
+            if (data.isEmpty()) {
+                return;
+            }
+            EditTransaction tx = transaction;
+            runTask("Updating " + selectedTable, () -> runEdit(tx, database, selectedTable,
+                    connection -> tableOps.updateRow(connection, database, selectedTable, data, rowValues)), updated -> {
+                if (updated == 0) {
+                    statusLogger.logError("No row of " + selectedTable + " matched the selection; it may have changed");
+                }
+                editFinished(tx, selectedTable);
+                statusLogger.logSuccess(String.format(DatabaseConstants.SUCCESS_UPDATE, selectedTable));
+                statusLogger.logSuccess("Updated record in " + selectedTable);
+                DialogUtils.showInfoDialog(this, "Record updated successfully!", "Success");
+            }, onError);
+        }, onError);
     }// GEN-LAST:event_btnUpdateActionPerformed
 
     private void btnShowActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnShowActionPerformed
         String selectedDB = (String) comboboxDB.getSelectedItem();
         if (selectedDB != null) {
-            try {
-                DatabaseOperations dbOps = new DatabaseOperations(connection);
-                StyledDocument doc = txtpnStatus.getStyledDocument();
-                dbOps.showTables(selectedDB, doc);
-                btnShow.setEnabled(false);
-                btnClose.setEnabled(true);
-            } catch (SQLException | BadLocationException e) {
-                DialogUtils.showErrorDialog(this, "Error opening database: " + e.getMessage(), "Error");
-            }
+            runTask("Showing tables of " + selectedDB, () -> dbOps.getTables(selectedDB), tables -> {
+                try {
+                    statusLogger.flush();
+                    StyledDocument doc = txtpnStatus.getStyledDocument();
+                    dbOps.showTables(selectedDB, tables, doc);
+                    btnShow.setEnabled(false);
+                    btnClose.setEnabled(true);
+                } catch (BadLocationException e) {
+                    DialogUtils.showErrorDialog(this, "Error opening database: " + e.getMessage(), "Error");
+                }
+            }, e -> DialogUtils.showErrorDialog(this, "Error opening database: " + e.getMessage(), "Error"));
         }
     }// GEN-LAST:event_btnShowActionPerformed
 
     private void btnCloseActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnCloseActionPerformed
         try {
-            DatabaseOperations dbOps = new DatabaseOperations(connection);
+            statusLogger.flush();
             StyledDocument doc = txtpnStatus.getStyledDocument();
             dbOps.closeDatabase(doc);
             btnShow.setEnabled(true);
             btnClose.setEnabled(false);
-        } catch (SQLException | BadLocationException e) {
+        } catch (BadLocationException e) {
             DialogUtils.showErrorDialog(this, "Error closing database: " + e.getMessage(), "Error");
         }
     }// GEN-LAST:event_btnCloseActionPerformed
@@ -633,34 +1393,34 @@ public class DatabaseManager extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, "Please select a database first", "No Database");
             return;
         }
-        List<String> tables;
-        try {
-            tables = getTables(currentDatabase);
-        } catch (SQLException e) {
-            return;
-        }
-        if (tables.isEmpty()) {
-            DialogUtils.showErrorDialog(this, "No tables found in the database", "No Tables");
-            return;
-        }
-        Map<String, Object> tableAndColumns = DialogUtils.showTableAndColumnsDialog(this, tables.toArray(new String[0]));
-        if (tableAndColumns.isEmpty()) {
-            return;
-        }
-        String table = (String) tableAndColumns.get("table");
-        String columns = (String) tableAndColumns.get("columns");
-        if (table != null && !table.trim().isEmpty() && columns != null && !columns.trim().isEmpty()) {
-            try {
+        String database = currentDatabase;
+        runTask("Loading tables of " + database, () -> dbOps.getTables(database), tables -> {
+            statusLogger.logSuccess("Loaded tables for database: " + database);
+            if (tables.isEmpty()) {
+                DialogUtils.showErrorDialog(this, "No tables found in the database", "No Tables");
+                return;
+            }
+            Map<String, Object> tableAndColumns = DialogUtils.showTableAndColumnsDialog(this, tables.toArray(new String[0]));
+            if (tableAndColumns.isEmpty()) {
+                return;
+            }
+            String table = (String) tableAndColumns.get("table");
+            String columns = (String) tableAndColumns.get("columns");
+            if (table != null && !table.trim().isEmpty() && columns != null && !columns.trim().isEmpty()
+                    && confirmDiscardEdits()) {
                 String query = QueryBuilder.buildSelectQuery(table, columns, null);
-                DatabaseOperations dbOps = new DatabaseOperations(connection);
-                DefaultTableModel model = dbOps.executeSelectQuery(query);
-                tblDB.setModel(model);
-                statusLogger.log("Executed query: " + query);
-            } catch (SQLException e) {
-                statusLogger.logError("Error executing query: " + e.getMessage());
-                DialogUtils.showErrorDialog(this, "Error executing query: " + e.getMessage(), "Query Error");
+                runTask("Executing query", () -> openPagedModel(database, table, columns), model -> {
+                    showPagedModel(model);
+                    statusLogger.log("Executed query: " + query);
+                }, e -> {
+                    statusLogger.logError("Error executing query: " + e.getMessage());
+                    DialogUtils.showErrorDialog(this, "Error executing query: " + e.getMessage(), "Query Error");
+                });
             }
-        }
+        }, e -> {
+            statusLogger.logError("Failed to load tables: " + e.getMessage());
+            DialogUtils.showErrorDialog(this, "Failed to load tables: " + e.getMessage(), "Error");
+        });
     }// GEN-LAST:event_btnSelectActionPerformed
 
     private void btnInsertActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnInsertActionPerformed
@@ -673,15 +1433,26 @@ public class DatabaseManager extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, "Please select a table first", "No Table");
             return;
         }
-        try {
-            tableOps.insertRecordWithPrompt(connection, currentDatabase, selectedTable, this);
-            loadTableData(selectedTable);
-            statusLogger.logSuccess("Inserted new record into " + selectedTable);
-            DialogUtils.showInfoDialog(this, "Record inserted successfully!", "Success");
-        } catch (SQLException e) {
+        String database = currentDatabase;
+        Consumer<Exception> onError = e -> {
             statusLogger.logError("Error inserting record: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Error inserting record: " + e.getMessage(), "Insert Error");
-        }
+        };
+        runTask("Describing " + selectedTable, () -> tableOps.describeTable(database, selectedTable), columns -> {
+            Map<String, Object> data = tableOps.promptInsertValues(columns, this);
+            if (data.isEmpty()) {
+                return;
+            }
+            EditTransaction tx = transaction;
+            runTask("Inserting into " + selectedTable, () -> runEdit(tx, database, selectedTable, connection -> {
+                tableOps.insertRecord(connection, selectedTable, data);
+                return 1;
+            }), inserted -> {
+                editFinished(tx, selectedTable);
+                statusLogger.logSuccess("Inserted new record into " + selectedTable);
+                DialogUtils.showInfoDialog(this, "Record inserted successfully!", "Success");
+            }, onError);
+        }, onError);
     }// GEN-LAST:event_btnInsertActionPerformed
 
     private void btnCreateActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnCreateActionPerformed
@@ -699,16 +1470,18 @@ public class DatabaseManager extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, "Columns cannot be empty", "Invalid Columns");
             return;
         }
-        try {
-            TableOperations tableOps = new TableOperations(connection);
-            tableOps.createTable(currentDatabase, tableName, columns);
-            loadTables(currentDatabase);    
+        String database = currentDatabase;
+        runTask("Creating table " + tableName, () -> {
+            tableOps.createTable(database, tableName, columns);
+            return tableName;
+        }, created -> {
+            loadTables(database);    
             statusLogger.logSuccess("Created new table: " + tableName);
             DialogUtils.showInfoDialog(this, "Table '" + tableName + "' created successfully!", "Success");
-        } catch (SQLException e) {
+        }, e -> {
             statusLogger.logError("Error creating table: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Error creating table: " + e.getMessage(), "Error");
-        }
+        });
     }// GEN-LAST:event_btnCreateActionPerformed
 
     private void btnDeleteActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnDeleteActionPerformed
@@ -726,15 +1499,32 @@ public class DatabaseManager extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, "Please select a row to delete", "No Selection");
             return;
         }
-        try {
-            tableOps.deleteRecordWithPrompt(currentDatabase, selectedTable, tblDB, selectedRow, this);
-            loadTableData(selectedTable);
-            statusLogger.logSuccess("Deleted record from " + selectedTable);
-            DialogUtils.showInfoDialog(this, "Record deleted successfully!", "Success");
-        } catch (SQLException e) {
+        String database = currentDatabase;
+        Consumer<Exception> onError = e -> {
             statusLogger.logError("Error deleting record: " + e.getMessage());
             DialogUtils.showErrorDialog(this, "Error deleting record: " + e.getMessage(), "Delete Error");
-        }
+        };
+        runTask("Describing " + selectedTable, () -> tableOps.describeTable(database, selectedTable), columns -> {
+            Map<String, Object> rowValues = tableOps.getRowValues(columns, tblDB, selectedRow);
+            if (rowValues.isEmpty()) {
+                DialogUtils.showErrorDialog(this, "The grid does not show any column of " + selectedTable, "Delete Error");
+                return;
+            }
+            int confirm = DialogUtils.showConfirmDialog(this, DatabaseConstants.CONFIRM_DELETE, "Confirm Delete");
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
+            }
+            EditTransaction tx = transaction;
+            runTask("Deleting from " + selectedTable, () -> runEdit(tx, database, selectedTable,
+                    connection -> tableOps.deleteRow(connection, database, selectedTable, rowValues)), deleted -> {
+                if (deleted == 0) {
+                    statusLogger.logError("No row of " + selectedTable + " matched the selection; it may have changed");
+                }
+                editFinished(tx, selectedTable);
+                statusLogger.logSuccess("Deleted record from " + selectedTable);
+                DialogUtils.showInfoDialog(this, "Record deleted successfully!", "Success");
+            }, onError);
+        }, onError);
     }// GEN-LAST:event_btnDeleteActionPerformed
 
     private void btnDropActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnDropActionPerformed
@@ -749,20 +1539,23 @@ public class DatabaseManager extends javax.swing.JFrame {
         }
         int confirm = DialogUtils.showConfirmDialog(this, "Are you sure you want to drop the table: " + selectedTable + "?", "Confirm Drop");
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                tableOps.dropTable(currentDatabase, selectedTable);
-                loadTables(currentDatabase);
+            String database = currentDatabase;
+            runTask("Dropping " + selectedTable, () -> {
+                tableOps.dropTable(database, selectedTable);
+                return selectedTable;
+            }, dropped -> {
+                loadTables(database);
                 statusLogger.logSuccess("Dropped table: " + selectedTable);
                 DialogUtils.showInfoDialog(this, "Table dropped successfully!", "Success");
-            } catch (SQLException e) {
+            }, e -> {
                 statusLogger.logError("Error dropping table: " + e.getMessage());
                 DialogUtils.showErrorDialog(this, "Error dropping table: " + e.getMessage(), "Drop Error");
-            }
+            });
         }
     }// GEN-LAST:event_btnDropActionPerformed
 
     private void btnClearActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_btnClearActionPerformed
-        txtpnStatus.setText("");
+        statusLogger.clear();
     }// GEN-LAST:event_btnClearActionPerformed
 
     private void comboboxDBActionPerformed(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_comboboxDBActionPerformed        
@@ -1,52 +1,86 @@
 package helloswing;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import javax.swing.table.DefaultTableModel;
+import java.util.function.Consumer;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.StyledDocument;
 
 public class DatabaseOperations {
-    private final Connection connection;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
 
-    public DatabaseOperations(Connection connection) {
-        this.connection = connection;
+    private final ConnectionPool pool;
+    private final MetadataCache metadataCache;
+
+    public DatabaseOperations(ConnectionPool pool) {
+        this(pool, new MetadataCache());
     }
 
-    public DefaultTableModel executeSelectQuery(String query) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-        java.sql.ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        String[] columnNames = new String[columnCount];
-        for (int i = 1; i <= columnCount; i++) {
-            columnNames[i - 1] = metaData.getColumnName(i);
-        }
-        DefaultTableModel model = new DefaultTableModel(columnNames, 0);
-        while (rs.next()) {
-            Object[] row = new Object[columnCount];
-            for (int i = 1; i <= columnCount; i++) {
-                row[i - 1] = rs.getObject(i);
+    public DatabaseOperations(ConnectionPool pool, MetadataCache metadataCache) {
+        this.pool = pool;
+        this.metadataCache = metadataCache;
+    }
+
+    public SpillableTableModel executeSelectQuery(String query) throws SQLException {
+        return executeSelectQuery(null, query);
+    }
+
+    /**
+     * Runs {@code query} and reads the whole result. Rows are streamed from
+     * the server and spilled to a temporary file past the in-memory
+     * threshold; close the returned model to delete that file.
+     */
+    public SpillableTableModel executeSelectQuery(String database, String query) throws SQLException {
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                return SpillableTableModel.from(rs);
             }
-            model.addRow(row);
+        } catch (IOException e) {
+            throw new SQLException("Failed to spill query result to disk: " + e.getMessage(), e);
         }
-        return model;
     }
 
-    public DefaultTableModel selectRecords(String table, String columns, Map<String, Object> conditions) throws SQLException {
-        String query = QueryBuilder.buildSelectQuery(table, columns, conditions);
-        return executeSelectQuery(query);
+    /**
+     * Reads the rows of {@code table} matching {@code conditions} through a
+     * prepared statement, which the pool's statement cache reuses for every
+     * lookup with the same columns, whatever the values.
+     */
+    public SpillableTableModel selectRecords(String database, String table, String columns, Map<String, Object> conditions) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String query = QueryBuilder.buildSelectQuery(table, columns, conditions, params);
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return SpillableTableModel.from(rs);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to spill query result to disk: " + e.getMessage(), e);
+        }
     }
 
     public List<String> getDatabases() throws SQLException {
+        return metadataCache.getDatabases(this::loadDatabases);
+    }
+
+    private List<String> loadDatabases() throws SQLException {
         List<String> databases = new ArrayList<>();
-        try (Statement stmt = this.connection.createStatement();
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement();
                 ResultSet rs = stmt.executeQuery("SHOW DATABASES")) {
             while (rs.next()) {
                 databases.add(rs.getString(1));
@@ -56,9 +90,14 @@ public class DatabaseOperations {
     }
 
     public List<String> getTables(String database) throws SQLException {
+        return metadataCache.getTables(database, () -> loadTables(database));
+    }
+
+    private List<String> loadTables(String database) throws SQLException {
         List<String> tables = new ArrayList<>();
         String query = "SELECT table_name FROM information_schema.tables WHERE table_schema = ?";
-        try (PreparedStatement pstmt = this.connection.prepareStatement(query)) {
+        try (Connection connection = pool.borrow();
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, database);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -69,6 +108,20 @@ public class DatabaseOperations {
         return tables;
     }
 
+    public Map<String, List<String>> getAllTables() throws SQLException {
+        Map<String, List<String>> tables = new LinkedHashMap<>();
+        String query = "SELECT table_schema, table_name FROM information_schema.tables ORDER BY table_schema, table_name";
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                tables.computeIfAbsent(rs.getString(1), schema -> new ArrayList<>()).add(rs.getString(2));
+            }
+        }
+        tables.forEach(metadataCache::putTables);
+        return tables;
+    }
+
     public ResultSet getTableData(Connection connection, String database, String tableName) throws SQLException {
         String query = "SELECT * FROM " + database + "." + tableName;
         Statement stmt = connection.createStatement();
@@ -76,55 +129,138 @@ public class DatabaseOperations {
     }
 
     public void createDatabase(String name) throws SQLException {
-        try (Statement stmt = this.connection.createStatement()) {
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement()) {
             stmt.executeUpdate("CREATE DATABASE " + name);
+        } finally {
+            metadataCache.invalidateDatabases();
         }
     }
 
-    public void createTable(String name, String columns) throws SQLException {
-        try (Statement stmt = this.connection.createStatement()) {
+    public void createTable(String database, String name, String columns) throws SQLException {
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement()) {
             stmt.executeUpdate("CREATE TABLE " + name + " (" + columns + ")");
+        } finally {
+            metadataCache.invalidateTable(database, name);
+            pool.getResultCache().invalidateTable(database, name);
         }
     }
 
     public void dropTable(String database, String table) throws SQLException {
         String query = "DROP TABLE " + database + "." + table;
-        try (Statement stmt = this.connection.createStatement()) {
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(query);
+        } finally {
+            metadataCache.invalidateTable(database, table);
+            pool.getResultCache().invalidateTable(database, table);
         }
     }
 
-    public void showTables(String database, StyledDocument doc) throws SQLException, BadLocationException {
-        Statement stmt = connection.createStatement();
-        stmt.execute("USE " + database);
+    public void showTables(String database, List<String> tables, StyledDocument doc) throws BadLocationException {
         doc.insertString(doc.getLength(), "Show tables of " + database + "\n", null);
-        ResultSet rs = stmt.executeQuery("SHOW TABLES");
-        while (rs.next()) {
-            String tableName = rs.getString(1);
+        for (String tableName : tables) {
             doc.insertString(doc.getLength(), "Table: " + tableName + "\n", null);
         }
     }
 
-    public void closeDatabase(StyledDocument doc) throws SQLException, BadLocationException {
-        Statement stmt = connection.createStatement();
-        stmt.execute("USE mysql");
+    public void closeDatabase(StyledDocument doc) throws BadLocationException {
         doc.insertString(doc.getLength(), "Database closed\n", null);
     }
 
-    public void insertRecord(String table, Map<String, Object> data) throws SQLException {
+    public void insertRecord(String database, String table, Map<String, Object> data) throws SQLException {
         String query = QueryBuilder.buildInsertQuery(table, data);
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
             int paramIndex = 1;
             for (Object value : data.values()) {
                 pstmt.setObject(paramIndex++, value);
             }
             pstmt.executeUpdate();
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
         }
     }
 
-    public void updateRecord(String table, Map<String, Object> data, Map<String, Object> conditions) throws SQLException {
-        String query = QueryBuilder.buildUpdateQuery(table, data, conditions);
+    public BatchInsertResult insertRecords(String database, String table, List<Map<String, Object>> rows) throws SQLException {
+        return insertRecords(database, table, rows.iterator(), DEFAULT_BATCH_SIZE, null);
+    }
+
+    /**
+     * Inserts rows in JDBC batches of at most {@code chunkSize} rows, each
+     * committed in its own transaction. A failing chunk is rolled back and
+     * recorded in the result; the remaining chunks are still attempted.
+     * Consecutive rows with different column sets start a new chunk. Stopping
+     * the task ends the insert before its next chunk, keeping the committed
+     * ones.
+     */
+    public BatchInsertResult insertRecords(String database, String table, Iterator<Map<String, Object>> rows,
+            int chunkSize, Consumer<BatchInsertResult> progress) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        BatchInsertResult result = new BatchInsertResult();
+        try (Connection connection = pool.borrow(database)) {
+            connection.setAutoCommit(false);
+            List<Map<String, Object>> chunk = new ArrayList<>(chunkSize);
+            long firstRow = 0;
+            while (rows.hasNext()) {
+                Map<String, Object> row = rows.next();
+                if (!chunk.isEmpty() && (chunk.size() >= chunkSize || !row.keySet().equals(chunk.get(0).keySet()))) {
+                    insertChunk(connection, table, chunk, firstRow, result);
+                    firstRow += chunk.size();
+                    chunk.clear();
+                    if (progress != null) {
+                        progress.accept(result);
+                    }
+                }
+                chunk.add(row);
+            }
+            if (!chunk.isEmpty()) {
+                insertChunk(connection, table, chunk, firstRow, result);
+                if (progress != null) {
+                    progress.accept(result);
+                }
+            }
+            connection.setAutoCommit(true);
+        } finally {
+            result.finish();
+            pool.getResultCache().invalidateTable(database, table);
+        }
+        return result;
+    }
+
+    private void insertChunk(Connection connection, String table, List<Map<String, Object>> chunk, long firstRow,
+            BatchInsertResult result) throws SQLException {
+        if (TaskRunner.isCurrentCancelled()) {
+            throw new SQLException("Insert stopped after " + firstRow + " rows");
+        }
+        List<String> columns = new ArrayList<>(chunk.get(0).keySet());
+        Map<String, Object> template = new LinkedHashMap<>();
+        columns.forEach(column -> template.put(column, null));
+        String query = QueryBuilder.buildInsertQuery(table, template);
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            for (Map<String, Object> row : chunk) {
+                int paramIndex = 1;
+                for (String column : columns) {
+                    pstmt.setObject(paramIndex++, row.get(column));
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            connection.commit();
+            result.chunkSucceeded(chunk.size());
+        } catch (SQLException e) {
+            connection.rollback();
+            result.chunkFailed(firstRow, chunk.size(), e);
+        }
+    }
+
+    public void updateRecord(String database, String table, Map<String, Object> data, Map<String, Object> conditions) throws SQLException {
+        String query = QueryBuilder.buildUpdateQuery(table, data, conditions);
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
             int paramIndex = 1;
             for (Object value : data.values()) {
                 pstmt.setObject(paramIndex++, value);
@@ -133,13 +269,26 @@ public class DatabaseOperations {
                 pstmt.setObject(paramIndex++, value);
             }
             pstmt.executeUpdate();
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
         }
     }
 
-    public void deleteRecord(String table, String where) throws SQLException {
+    public void deleteRecord(String database, String table, String where) throws SQLException {
         String query = QueryBuilder.buildDeleteQuery(table, where);
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(query);
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
         }
     }
-}
\ No newline at end of file
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+}
@@ -0,0 +1,211 @@
+package helloswing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import javax.swing.JTree;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Loads the database tree: the schema nodes first, then the tables of a
+ * schema when it is expanded. Expanding a schema reads its tables, columns
+ * and keys at once through a {@link SchemaMetadataLoader}, so opening one of
+ * its tables needs no further metadata queries. Schemas expanded before a
+ * refresh are expanded and loaded again. With
+ * {@code -Dhelloswing.eagerMetadata=true} every schema is loaded once the
+ * tree is shown, each as its own task with at most
+ * {@code -Dhelloswing.metadataParallelism} (default
+ * {@value #DEFAULT_PARALLELISM}) running at once, so the wall time is set
+ * by the slowest schemas rather than their sum, while the other task
+ * workers stay free. Stop cancels the loads in flight and starts no more.
+ */
+public class DatabaseTreeLoader implements TreeWillExpandListener {
+    public static final String EAGER_PROPERTY = "helloswing.eagerMetadata";
+    public static final String PARALLELISM_PROPERTY = "helloswing.metadataParallelism";
+    public static final int DEFAULT_PARALLELISM = 2;
+
+    private static final String PLACEHOLDER = "Loading...";
+
+    private static final class Totals {
+        private int schemas;
+        private long tables;
+        private long rows;
+        private long bytes;
+    }
+
+    private final JTree tree;
+    private final DatabaseOperations dbOps;
+    private final TaskRunner taskRunner;
+    private final StatusLogger statusLogger;
+    private final SchemaMetadataLoader metadataLoader;
+    private final boolean eager = Boolean.getBoolean(EAGER_PROPERTY);
+    private final int parallelism = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM));
+    private int loadGeneration;
+
+    public DatabaseTreeLoader(JTree tree, DatabaseOperations dbOps, TaskRunner taskRunner, StatusLogger statusLogger,
+            SchemaMetadataLoader metadataLoader) {
+        this.tree = tree;
+        this.dbOps = dbOps;
+        this.taskRunner = taskRunner;
+        this.statusLogger = statusLogger;
+        this.metadataLoader = metadataLoader;
+        tree.addTreeWillExpandListener(this);
+    }
+
+    public void load() {
+        List<String> expanded = getExpandedDatabases();
+        taskRunner.submit("Loading database tree", () -> {
+            DefaultMutableTreeNode root = new DefaultMutableTreeNode("Databases");
+            for (String dbName : dbOps.getDatabases()) {
+                if (!DatabaseConstants.SYSTEM_DATABASES.contains(dbName)) {
+                    root.add(createDatabaseNode(dbName));
+                }
+            }
+            return root;
+        }, root -> {
+            loadGeneration++;
+            tree.setModel(new DefaultTreeModel(root));
+            List<String> databases = new ArrayList<>();
+            for (int i = 0; i < root.getChildCount(); i++) {
+                DefaultMutableTreeNode dbNode = (DefaultMutableTreeNode) root.getChildAt(i);
+                String dbName = dbNode.getUserObject().toString();
+                databases.add(dbName);
+                if (expanded.contains(dbName)) {
+                    tree.expandPath(new TreePath(dbNode.getPath()));
+                }
+            }
+            if (eager && !databases.isEmpty()) {
+                loadAllMetadata(databases);
+            }
+        }, e -> {
+            statusLogger.logError("Failed to load database tree: " + e.getMessage());
+            DialogUtils.showErrorDialog(tree, "Failed to load database tree: " + e.getMessage(), "Error");
+        });
+    }
+
+    /**
+     * Fans the schemas out as one task each, with at most
+     * {@link #parallelism} loading at once, and fills each schema node that
+     * is still waiting for its tables as its result arrives.
+     */
+    private void loadAllMetadata(List<String> databases) {
+        int generation = loadGeneration;
+        Deque<String> pending = new ArrayDeque<>(databases);
+        Totals totals = new Totals();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < Math.min(parallelism, databases.size()); i++) {
+            loadNextSchema(pending, databases.size(), generation, totals, start);
+        }
+    }
+
+    /**
+     * Loads the next pending schema; each finished schema starts the one
+     * after it. A cancelled load runs no callback, which ends its chain.
+     */
+    private void loadNextSchema(Deque<String> pending, int count, int generation, Totals totals, long start) {
+        String dbName = pending.poll();
+        if (dbName == null || generation != loadGeneration) {
+            return;
+        }
+        taskRunner.submit("Loading metadata of " + dbName, () -> metadataLoader.load(dbName), schema -> {
+            DefaultMutableTreeNode dbNode = generation == loadGeneration ? findDatabaseNode(dbName) : null;
+            if (dbNode != null && needsLoading(dbNode)) {
+                setTables(dbNode, schema.getTables());
+            }
+            totals.tables += schema.getTables().size();
+            totals.rows += schema.getRows();
+            totals.bytes += schema.getBytes();
+            schemaFinished(pending, count, generation, totals, start);
+        }, e -> {
+            statusLogger.logError("Failed to load metadata of " + dbName + ": " + e.getMessage());
+            schemaFinished(pending, count, generation, totals, start);
+        });
+    }
+
+    private void schemaFinished(Deque<String> pending, int count, int generation, Totals totals, long start) {
+        if (++totals.schemas == count) {
+            statusLogger.log(String.format("Loaded metadata of %d schemas (%,d tables, ~%,d rows, %,d MB) in %d ms",
+                count, totals.tables, totals.rows, totals.bytes / (1024 * 1024), System.currentTimeMillis() - start));
+        } else {
+            loadNextSchema(pending, count, generation, totals, start);
+        }
+    }
+
+    public static boolean isPlaceholder(DefaultMutableTreeNode node) {
+        return node != null && node.getUserObject() == PLACEHOLDER;
+    }
+
+    private static DefaultMutableTreeNode createDatabaseNode(String dbName) {
+        DefaultMutableTreeNode dbNode = new DefaultMutableTreeNode(dbName);
+        dbNode.add(new DefaultMutableTreeNode(PLACEHOLDER, false));
+        return dbNode;
+    }
+
+    private boolean needsLoading(DefaultMutableTreeNode dbNode) {
+        return dbNode.getChildCount() == 1 && isPlaceholder((DefaultMutableTreeNode) dbNode.getFirstChild());
+    }
+
+    private void setTables(DefaultMutableTreeNode dbNode, List<String> tables) {
+        dbNode.removeAllChildren();
+        for (String tableName : tables) {
+            dbNode.add(new DefaultMutableTreeNode(tableName, false));
+        }
+        ((DefaultTreeModel) tree.getModel()).nodeStructureChanged(dbNode);
+    }
+
+    private DefaultMutableTreeNode findDatabaseNode(String dbName) {
+        DefaultMutableTreeNode root = (DefaultMutableTreeNode) tree.getModel().getRoot();
+        for (int i = 0; i < root.getChildCount(); i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) root.getChildAt(i);
+            if (dbName.equals(child.getUserObject())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private List<String> getExpandedDatabases() {
+        List<String> expanded = new ArrayList<>();
+        Object root = tree.getModel().getRoot();
+        if (!(root instanceof DefaultMutableTreeNode)) {
+            return expanded;
+        }
+        Enumeration<TreePath> paths = tree.getExpandedDescendants(new TreePath(root));
+        while (paths != null && paths.hasMoreElements()) {
+            TreePath path = paths.nextElement();
+            if (path.getPathCount() == 2) {
+                expanded.add(path.getLastPathComponent().toString());
+            }
+        }
+        return expanded;
+    }
+
+    @Override
+    public void treeWillExpand(TreeExpansionEvent event) {
+        Object last = event.getPath().getLastPathComponent();
+        if (!(last instanceof DefaultMutableTreeNode)) {
+            return;
+        }
+        DefaultMutableTreeNode dbNode = (DefaultMutableTreeNode) last;
+        if (dbNode.getLevel() != 1 || !needsLoading(dbNode)) {
+            return;
+        }
+        String dbName = dbNode.getUserObject().toString();
+        int generation = loadGeneration;
+        taskRunner.submit("Loading tables of " + dbName, () -> metadataLoader.load(dbName), schema -> {
+            if (generation == loadGeneration && needsLoading(dbNode)) {
+                setTables(dbNode, schema.getTables());
+            }
+        }, e -> statusLogger.logError("Failed to load tables of " + dbName + ": " + e.getMessage()));
+    }
+
+    @Override
+    public void treeWillCollapse(TreeExpansionEvent event) {
+    }
+}
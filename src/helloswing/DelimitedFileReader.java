@@ -0,0 +1,112 @@
+package helloswing;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for CSV and TSV files. Records are parsed one at a time,
+ * so memory use depends on the widest record rather than the file size.
+ * Quoted fields may contain delimiters, doubled quotes and line breaks.
+ */
+public class DelimitedFileReader implements Closeable {
+    private static final char QUOTE = '"';
+
+    private final BufferedReader reader;
+    private final char delimiter;
+    private long recordNumber;
+    private boolean sawCarriageReturn;
+
+    public DelimitedFileReader(Path file, char delimiter) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.delimiter = delimiter;
+    }
+
+    public static char delimiterFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',';
+    }
+
+    /**
+     * Returns the next record, or null at end of file.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (c == -1) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+                }
+                break;
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == QUOTE) {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == QUOTE) {
+                        field.append(QUOTE);
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == QUOTE && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (ch == '\n') {
+                break;
+            } else if (ch == '\r') {
+                sawCarriageReturn = true;
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else {
+                field.append(ch);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        recordNumber++;
+        return fields;
+    }
+
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public boolean usesCrLf() {
+        return sawCarriageReturn;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -49,6 +49,17 @@ public class DialogUtils {
         return conditions;
     }
 
+    public static String showQueryDialog(Component parent) {
+        JTextArea queryArea = new JTextArea(8, 60);
+        queryArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        queryArea.setToolTipText("A SELECT, SHOW, DESCRIBE or EXPLAIN statement");
+        int result = JOptionPane.showConfirmDialog(parent, new JScrollPane(queryArea), "Run Query", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result == JOptionPane.OK_OPTION && !queryArea.getText().trim().isEmpty()) {
+            return queryArea.getText().trim();
+        }
+        return null;
+    }
+
     public static String showColumnInputDialog(Component parent) {
         JPanel panel = new JPanel();
         JTextField textField = new JTextField(20);
@@ -84,4 +95,74 @@ public class DialogUtils {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Asks where to copy {@code table}. Returns the target "database" and
+     * "table", "workers" and "chunkRows", plus "host", "port", "user" and
+     * "password" (a char[]) when copying to another server; empty if
+     * cancelled.
+     */
+    public static Map<String, Object> showCopyTableDialog(Component parent, String table, String[] databases, String database) {
+        Map<String, Object> result = new HashMap<>();
+        JPanel panel = new JPanel(new GridLayout(0, 2));
+        JComboBox<String> databaseComboBox = new JComboBox<>(databases);
+        databaseComboBox.setEditable(true);
+        databaseComboBox.setSelectedItem(database);
+        JTextField tableField = new JTextField(table + "_copy");
+        JSpinner workersSpinner = new JSpinner(new SpinnerNumberModel(1, 1, TableCopier.MAX_WORKERS, 1));
+        JSpinner chunkSpinner = new JSpinner(new SpinnerNumberModel(TableCopier.DEFAULT_CHUNK_ROWS, 100, 1000000, 1000));
+        JCheckBox otherServerBox = new JCheckBox("Copy to another server");
+        JTextField hostField = new JTextField("localhost");
+        JTextField portField = new JTextField("3306");
+        JTextField userField = new JTextField();
+        JPasswordField passwordField = new JPasswordField();
+        workersSpinner.setToolTipText("Key ranges copied at the same time, each on its own connection");
+        chunkSpinner.setToolTipText("Rows per INSERT ... SELECT (same server) or per committed batch (other server)");
+        JComponent[] serverFields = { hostField, portField, userField, passwordField };
+        for (JComponent field : serverFields) {
+            field.setEnabled(false);
+        }
+        otherServerBox.addActionListener(e -> {
+            for (JComponent field : serverFields) {
+                field.setEnabled(otherServerBox.isSelected());
+            }
+            workersSpinner.setEnabled(!otherServerBox.isSelected());
+        });
+        panel.add(new JLabel("Target database:"));
+        panel.add(databaseComboBox);
+        panel.add(new JLabel("Target table:"));
+        panel.add(tableField);
+        panel.add(new JLabel("Parallel workers:"));
+        panel.add(workersSpinner);
+        panel.add(new JLabel("Rows per chunk:"));
+        panel.add(chunkSpinner);
+        panel.add(otherServerBox);
+        panel.add(new JLabel());
+        panel.add(new JLabel("Host:"));
+        panel.add(hostField);
+        panel.add(new JLabel("Port:"));
+        panel.add(portField);
+        panel.add(new JLabel("User:"));
+        panel.add(userField);
+        panel.add(new JLabel("Password:"));
+        panel.add(passwordField);
+        int dialogResult = JOptionPane.showConfirmDialog(parent, panel, "Copy " + table, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (dialogResult == JOptionPane.OK_OPTION) {
+            Object targetDatabase = databaseComboBox.getSelectedItem();
+            String targetTable = tableField.getText().trim();
+            if (targetDatabase != null && !targetDatabase.toString().trim().isEmpty() && !targetTable.isEmpty()) {
+                result.put("database", targetDatabase.toString().trim());
+                result.put("table", targetTable);
+                result.put("workers", workersSpinner.getValue());
+                result.put("chunkRows", chunkSpinner.getValue());
+                if (otherServerBox.isSelected()) {
+                    result.put("host", hostField.getText().trim());
+                    result.put("port", portField.getText().trim());
+                    result.put("user", userField.getText().trim());
+                    result.put("password", passwordField.getPassword());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package helloswing;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Explicit transaction that groups edits made from the UI, so they cost one
+ * durable commit instead of one per statement. It runs on a session
+ * connection outside the pool, so grids read through the pool show the
+ * edits only once they are committed; closing without a commit rolls them
+ * back. Its statements are metered, timed out and cancellable like pooled
+ * ones. If the server rolls the whole transaction back, e.g. to break a
+ * deadlock, the transaction ends and the failing edit says so. Cached
+ * results of the edited tables are dropped on commit.
+ */
+public class EditTransaction implements AutoCloseable {
+    public static final String LOCK_WAIT_TIMEOUT_PROPERTY = "helloswing.lockWaitTimeout";
+    public static final int DEFAULT_LOCK_WAIT_TIMEOUT = 50;
+
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    /**
+     * A write run inside the transaction, returning the number of rows it
+     * changed.
+     */
+    public interface Edit {
+        int run(Connection connection) throws SQLException;
+    }
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Set<List<String>> tables = new LinkedHashSet<>();
+    private int pendingChanges;
+    private long pendingRows;
+    private boolean rollbackOnTimeout;
+    private boolean rolledBack;
+
+    private EditTransaction(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    /**
+     * Starts a transaction whose statements wait at most
+     * {@code lockWaitTimeoutSeconds} for row locks held by other sessions.
+     */
+    public static EditTransaction begin(ConnectionPool pool, int lockWaitTimeoutSeconds) throws SQLException {
+        Connection connection = pool.openSession();
+        try {
+            connection.setAutoCommit(false);
+            EditTransaction transaction = new EditTransaction(pool, connection);
+            transaction.setLockWaitTimeout(lockWaitTimeoutSeconds);
+            try (Statement stmt = connection.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT @@innodb_rollback_on_timeout")) {
+                transaction.rollbackOnTimeout = rs.next() && rs.getBoolean(1);
+            }
+            return transaction;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public synchronized void setLockWaitTimeout(int seconds) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SET SESSION innodb_lock_wait_timeout = " + Math.max(1, seconds));
+        }
+    }
+
+    /**
+     * Runs {@code edit} against {@code table} of {@code database} and counts
+     * it as pending. A failed edit leaves the earlier ones in place.
+     */
+    public synchronized int execute(String database, String table, Edit edit) throws SQLException {
+        if (rolledBack) {
+            throw new SQLException("The transaction was rolled back by the server");
+        }
+        int rows;
+        try {
+            connection.setCatalog(database);
+            rows = edit.run(connection);
+        } catch (SQLException e) {
+            if (!isRolledBackByServer(e)) {
+                throw e;
+            }
+            int discarded = pendingChanges;
+            rolledBack = true;
+            close();
+            throw new SQLException(e.getMessage() + "\nThe server rolled back the transaction; its "
+                + discarded + " pending changes were discarded.", e.getSQLState(), e.getErrorCode(), e);
+        }
+        tables.add(List.of(database, table));
+        pendingChanges++;
+        pendingRows += rows;
+        return rows;
+    }
+
+    /**
+     * A deadlock rolls back the whole transaction, a lock wait timeout only
+     * the statement unless innodb_rollback_on_timeout is set, although the
+     * driver reports both as transaction rollbacks.
+     */
+    private boolean isRolledBackByServer(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException)) {
+                continue;
+            }
+            SQLException sqlException = (SQLException) t;
+            if (sqlException.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                return rollbackOnTimeout;
+            }
+            if (sqlException.getErrorCode() == ER_LOCK_DEADLOCK || sqlException instanceof SQLTransactionRollbackException
+                    || "40001".equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the server rolled the transaction back, which also ended it.
+     */
+    public synchronized boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public synchronized int getPendingChanges() {
+        return pendingChanges;
+    }
+
+    public synchronized long getPendingRows() {
+        return pendingRows;
+    }
+
+    /**
+     * Commits the edits and ends the transaction.
+     */
+    public synchronized void commit() throws SQLException {
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            if (isRolledBackByServer(e)) {
+                rolledBack = true;
+                close();
+            }
+            throw e;
+        } finally {
+            for (List<String> table : tables) {
+                pool.getResultCache().invalidateTable(table.get(0), table.get(1));
+            }
+        }
+        close();
+    }
+
+    /**
+     * Discards the edits and ends the transaction.
+     */
+    public synchronized void rollback() throws SQLException {
+        try {
+            connection.rollback();
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        tables.clear();
+        pendingChanges = 0;
+        pendingRows = 0;
+        connection.close();
+    }
+}
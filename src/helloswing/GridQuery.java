@@ -0,0 +1,77 @@
+package helloswing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Filters and sort order of a table grid, applied on the server by
+ * {@link PagedTableModel}. Filters map a column to the text typed for it
+ * (see {@link QueryBuilder#buildFilterCondition}). Instances are immutable.
+ */
+public final class GridQuery {
+    public static final GridQuery NONE = new GridQuery(Collections.emptyMap(), null, false);
+
+    private final Map<String, String> filters;
+    private final String sortColumn;
+    private final boolean descending;
+
+    private GridQuery(Map<String, String> filters, String sortColumn, boolean descending) {
+        this.filters = filters;
+        this.sortColumn = sortColumn;
+        this.descending = descending;
+    }
+
+    /**
+     * Returns a copy with the filter of {@code column} set, or removed if
+     * {@code text} is blank.
+     */
+    public GridQuery withFilter(String column, String text) {
+        Map<String, String> copy = new LinkedHashMap<>(filters);
+        if (text == null || text.trim().isEmpty()) {
+            copy.remove(column);
+        } else {
+            copy.put(column, text.trim());
+        }
+        return new GridQuery(Collections.unmodifiableMap(copy), sortColumn, descending);
+    }
+
+    public GridQuery withFilters(Map<String, String> filters) {
+        GridQuery query = new GridQuery(Collections.emptyMap(), sortColumn, descending);
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            query = query.withFilter(filter.getKey(), filter.getValue());
+        }
+        return query;
+    }
+
+    /**
+     * Returns a copy sorted by {@code column}, or unsorted for null.
+     */
+    public GridQuery withSort(String column, boolean descending) {
+        return new GridQuery(filters, column, column != null && descending);
+    }
+
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    public String getFilter(String column) {
+        return filters.get(column);
+    }
+
+    public String getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isFiltered() {
+        return !filters.isEmpty();
+    }
+
+    public boolean isSorted() {
+        return sortColumn != null;
+    }
+}
@@ -0,0 +1,139 @@
+package helloswing;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-bounded cache for schema metadata: the database list, the tables of
+ * each database and the columns/keys of each table. Entries expire after the
+ * configured TTL and are dropped explicitly after DDL.
+ */
+public class MetadataCache {
+    public static final long DEFAULT_TTL_MILLIS = 60000;
+
+    private static final String DATABASES = "databases";
+    private static final String TABLES = "tables:";
+    private static final String TABLE = "table:";
+
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public MetadataCache() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+    public MetadataCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public List<String> getDatabases(Loader<List<String>> loader) throws SQLException {
+        return getList(DATABASES, loader);
+    }
+
+    public List<String> getTables(String database, Loader<List<String>> loader) throws SQLException {
+        return getList(TABLES + database, loader);
+    }
+
+    public void putTables(String database, List<String> tables) {
+        put(TABLES + database, Collections.unmodifiableList(tables));
+    }
+
+    public List<ColumnInfo> getColumns(String database, String table, Loader<List<ColumnInfo>> loader) throws SQLException {
+        return getList(TABLE + database + "." + table + ":columns", loader);
+    }
+
+    public List<String> getPrimaryKey(String database, String table, Loader<List<String>> loader) throws SQLException {
+        return getList(TABLE + database + "." + table + ":pk", loader);
+    }
+
+    public List<String> getRowKey(String database, String table, Loader<List<String>> loader) throws SQLException {
+        return getList(TABLE + database + "." + table + ":rowkey", loader);
+    }
+
+    public Long getRowEstimate(String database, String table, Loader<Long> loader) throws SQLException {
+        return get(TABLE + database + "." + table + ":rows", loader);
+    }
+
+    /**
+     * Stores metadata of one table that was read in bulk, so later lookups
+     * need no round trip.
+     */
+    public void putTable(String database, String table, List<ColumnInfo> columns, List<String> primaryKey,
+            List<String> rowKey, long rowEstimate) {
+        String prefix = TABLE + database + "." + table;
+        put(prefix + ":columns", Collections.unmodifiableList(columns));
+        put(prefix + ":pk", Collections.unmodifiableList(primaryKey));
+        put(prefix + ":rowkey", Collections.unmodifiableList(rowKey));
+        put(prefix + ":rows", rowEstimate);
+    }
+
+    private <T> List<T> getList(String key, Loader<List<T>> loader) throws SQLException {
+        return get(key, () -> Collections.unmodifiableList(loader.load()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Loader<T> loader) throws SQLException {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return (T) entry.value;
+        }
+        misses.incrementAndGet();
+        T value = loader.load();
+        put(key, value);
+        return value;
+    }
+
+    private void put(String key, Object value) {
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidateDatabases() {
+        entries.remove(DATABASES);
+    }
+
+    public void invalidateDatabase(String database) {
+        entries.remove(DATABASES);
+        entries.remove(TABLES + database);
+        String prefix = TABLE + database + ".";
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void invalidateTable(String database, String table) {
+        entries.remove(TABLES + database);
+        String prefix = TABLE + database + "." + table + ":";
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
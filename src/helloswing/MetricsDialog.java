@@ -0,0 +1,91 @@
+package helloswing;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Non-modal window showing {@link QueryMetrics} and pool statistics,
+ * refreshed once per second while it is open.
+ */
+public class MetricsDialog extends JDialog {
+    private static final int REFRESH_MILLIS = 1000;
+    private static final String[] COLUMNS = {
+        "Operation", "Count", "Errors", "Rows", "Bytes", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"
+    };
+
+    private final ConnectionPool pool;
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JLabel lblPool = new JLabel();
+    private final Timer refreshTimer;
+
+    public MetricsDialog(Frame owner, ConnectionPool pool) {
+        super(owner, "Statement Metrics", false);
+        this.pool = pool;
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        JButton btnReset = new JButton("Reset");
+        btnReset.addActionListener(e -> {
+            pool.getMetrics().reset();
+            refresh();
+        });
+        JPanel south = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        south.add(btnReset);
+        south.add(lblPool);
+        getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        getContentPane().add(south, BorderLayout.SOUTH);
+        setSize(900, 260);
+        setLocationRelativeTo(owner);
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                refreshTimer.start();
+            }
+
+            @Override
+            public void windowActivated(WindowEvent e) {
+                refreshTimer.start();
+            }
+
+            @Override
+            public void windowClosing(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+        refresh();
+    }
+
+    private void refresh() {
+        model.setRowCount(0);
+        for (QueryMetrics.OperationStats stats : pool.getMetrics().getOperationStats()) {
+            model.addRow(new Object[] {
+                stats.getOperation(), stats.getCount(), stats.getErrors(), stats.getRows(), stats.getBytes(),
+                millis(stats.getMeanMicros()), millis(stats.getP50Micros()), millis(stats.getP90Micros()),
+                millis(stats.getP99Micros()), millis(stats.getP999Micros()), millis(stats.getMaxMicros())
+            });
+        }
+        ResultCache cache = pool.getResultCache();
+        lblPool.setText(pool.getStats() + String.format(" | result cache: %d entries, %d KB, hits=%d misses=%d",
+            cache.getEntryCount(), cache.getSizeBytes() / 1024, cache.getHitCount(), cache.getMissCount()));
+    }
+
+    private static String millis(double micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,557 @@
+package helloswing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that fetches rows one page at a time as the table asks for
+ * them. Only a bounded window of pages is kept in memory; pages are read
+ * with keyset pagination on the primary key when the key columns are part
+ * of the selection, and with LIMIT/OFFSET otherwise.
+ *
+ * The row count grows as pages are discovered: while more rows may exist,
+ * one page of placeholder rows is reported past the last fetched row, and
+ * scrolling into it fetches the next page. With an estimated or exact total
+ * set, the full range is reported up front and any page can be visited; a
+ * page whose predecessor's last key is unknown is read with an ordered
+ * LIMIT/OFFSET, and keyset pagination continues from it.
+ *
+ * A {@link GridQuery} filters and sorts the rows on the server. Sorting by a
+ * column other than the key uses ordered LIMIT/OFFSET for every page, since
+ * the sort column may hold NULLs and duplicates that keyset comparisons
+ * cannot step over.
+ *
+ * When the row key is part of the selection, cells can be edited. Edits are
+ * kept in an overlay over the fetched pages, which may be shared with the
+ * result cache and are never modified, until they are saved with
+ * {@link #getPendingEdits()} and {@link #editsSaved}.
+ */
+public class PagedTableModel extends AbstractTableModel {
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    private final ConnectionPool pool;
+    private final TaskRunner taskRunner;
+    private final String database;
+    private final String table;
+    private final String columns;
+    private final GridQuery view;
+    private final List<String> keyColumns;
+    private final int[] keyIndexes;
+    private final String[] columnNames;
+    private final int pageSize;
+    private final Map<Integer, Object[][]> pages;
+    private final Map<Integer, Object[]> pageLastKeys = new HashMap<>();
+    private final Map<Integer, TaskRunner.TaskHandle> loading = new HashMap<>();
+    private final Map<Integer, EditedRow> edits = new TreeMap<>();
+    private Consumer<Exception> errorHandler;
+    private int loadedEnd;
+    private int exactRows = -1;
+    private int upperBound = Integer.MAX_VALUE;
+    private long estimatedRows = -1;
+
+    private PagedTableModel(ConnectionPool pool, TaskRunner taskRunner, String database, String table, String columns,
+            GridQuery view, List<String> keyColumns, int[] keyIndexes, String[] columnNames, int pageSize, int maxPages) {
+        this.pool = pool;
+        this.taskRunner = taskRunner;
+        this.database = database;
+        this.table = table;
+        this.columns = columns;
+        this.view = view;
+        this.keyColumns = keyColumns;
+        this.keyIndexes = keyIndexes;
+        this.columnNames = columnNames;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Fetches the first page and builds the model. Call from a background
+     * task; later pages are loaded through {@code taskRunner}.
+     */
+    public static PagedTableModel open(ConnectionPool pool, TaskRunner taskRunner, String database, String table,
+            String columns, List<String> primaryKey) throws SQLException {
+        return open(pool, taskRunner, database, table, columns, primaryKey, GridQuery.NONE);
+    }
+
+    public static PagedTableModel open(ConnectionPool pool, TaskRunner taskRunner, String database, String table,
+            String columns, List<String> primaryKey, GridQuery view) throws SQLException {
+        return open(pool, taskRunner, database, table, columns, primaryKey, view, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public static PagedTableModel open(ConnectionPool pool, TaskRunner taskRunner, String database, String table,
+            String columns, List<String> primaryKey, GridQuery view, int pageSize, int maxPages) throws SQLException {
+        String[] names = readColumnNames(pool, database, table, columns);
+        List<String> keys = new ArrayList<>();
+        int[] keyIndexes = resolveKeyIndexes(names, primaryKey);
+        if (keyIndexes != null) {
+            keys.addAll(primaryKey);
+        }
+        PagedTableModel model = new PagedTableModel(pool, taskRunner, database, table, columns, view, keys,
+            keyIndexes, names, pageSize, Math.max(2, maxPages));
+        Object[][] first = model.fetchPage(0, null);
+        model.pageLoaded(0, first);
+        return model;
+    }
+
+    private static String[] readColumnNames(ConnectionPool pool, String database, String table, String columns)
+            throws SQLException {
+        String query = QueryBuilder.buildOffsetPageQuery(table, columns);
+        List<Object> params = Arrays.asList(0, 0);
+        ResultCache cache = pool.getResultCache();
+        Object[][] cached = cache.get(database, query, params);
+        if (cached != null) {
+            return (String[]) cached[0];
+        }
+        long generation = cache.generation();
+        String[] names;
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, 0);
+            pstmt.setInt(2, 0);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                names = new String[metaData.getColumnCount()];
+                for (int i = 1; i <= names.length; i++) {
+                    names[i - 1] = metaData.getColumnName(i);
+                }
+            }
+        }
+        cache.put(database, query, params, Collections.singleton(ResultCache.tableKey(database, table)),
+            new Object[][] { names }, generation);
+        return names;
+    }
+
+    private static int[] resolveKeyIndexes(String[] names, List<String> primaryKey) {
+        if (primaryKey == null || primaryKey.isEmpty()) {
+            return null;
+        }
+        int[] indexes = new int[primaryKey.size()];
+        for (int k = 0; k < indexes.length; k++) {
+            indexes[k] = -1;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(primaryKey.get(k))) {
+                    indexes[k] = i;
+                    break;
+                }
+            }
+            if (indexes[k] < 0) {
+                return null;
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Reads one page, from the pool's result cache when possible.
+     */
+    private Object[][] fetchPage(int page, Object[] afterKey) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String condition = QueryBuilder.buildFilterCondition(view.getFilters(), params);
+        boolean keyset = useKeyset() && (page == 0 || afterKey != null);
+        String query;
+        if (keyset) {
+            query = QueryBuilder.buildKeysetPageQuery(table, columns, condition, keyColumns, afterKey != null);
+        } else if (view.isSorted()) {
+            List<String> order = new ArrayList<>();
+            order.add(view.getSortColumn());
+            order.addAll(keyColumns);
+            query = QueryBuilder.buildOrderedOffsetPageQuery(table, columns, condition, order, view.isDescending());
+        } else {
+            query = QueryBuilder.buildOrderedOffsetPageQuery(table, columns, condition, keyColumns, false);
+        }
+        if (keyset && afterKey != null) {
+            Collections.addAll(params, afterKey);
+        }
+        params.add(pageSize);
+        if (!keyset) {
+            params.add((long) page * pageSize);
+        }
+        ResultCache cache = pool.getResultCache();
+        Object[][] cached = cache.get(database, query, params);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
+        Object[][] rows;
+        try (Connection connection = pool.borrow(database)) {
+            rows = fetchPage(connection, query, params);
+        }
+        cache.put(database, query, params, Collections.singleton(ResultCache.tableKey(database, table)), rows, generation);
+        return rows;
+    }
+
+    private Object[][] fetchPage(Connection connection, String query, List<Object> params) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            List<Object[]> rows = new ArrayList<>(pageSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int columnCount = columnNames.length;
+                while (rs.next()) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        row[i - 1] = rs.getObject(i);
+                    }
+                    rows.add(row);
+                }
+            }
+            return rows.toArray(new Object[0][]);
+        }
+    }
+
+    private void pageLoaded(int page, Object[][] rows) {
+        int before = getRowCount();
+        pages.put(page, rows);
+        int first = page * pageSize;
+        if (rows.length > 0) {
+            if (useKeyset()) {
+                pageLastKeys.put(page, keyOf(rows[rows.length - 1]));
+            }
+            loadedEnd = Math.max(loadedEnd, first + rows.length);
+        }
+        if (rows.length < pageSize) {
+            if (rows.length > 0 || page == 0) {
+                exactRows = first + rows.length;
+            } else {
+                // Past the end, e.g. after jumping by an estimate that was too high.
+                upperBound = Math.min(upperBound, first);
+            }
+        }
+        fireRowCountChanged(before);
+        int last = Math.min(first + rows.length, getRowCount()) - 1;
+        if (last >= first) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private Object[] keyOf(Object[] row) {
+        Object[] key = new Object[keyIndexes.length];
+        for (int k = 0; k < keyIndexes.length; k++) {
+            key[k] = row[keyIndexes[k]];
+        }
+        return key;
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || (long) page * pageSize >= getRowCount() || pages.containsKey(page)) {
+            return;
+        }
+        TaskRunner.TaskHandle pending = loading.get(page);
+        if (pending != null && !pending.isCancelled()) {
+            return;
+        }
+        Object[] afterKey = page == 0 || !useKeyset() ? null : pageLastKeys.get(page - 1);
+        TaskRunner.TaskHandle handle = taskRunner.submit("Fetching page " + (page + 1) + " of " + table,
+                () -> fetchPage(page, afterKey), rows -> {
+            loading.remove(page);
+            pageLoaded(page, rows);
+        }, e -> {
+            loading.remove(page);
+            if (errorHandler != null) {
+                errorHandler.accept(e);
+            }
+        });
+        loading.put(page, handle);
+    }
+
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumns() {
+        return columns;
+    }
+
+    public GridQuery getView() {
+        return view;
+    }
+
+    /**
+     * Returns the unpaged query behind this model with the filters and sort
+     * order of its view, e.g. for exporting it. The filter values to bind
+     * are appended to {@code params}.
+     */
+    public String getQuery(List<Object> params) {
+        String condition = QueryBuilder.buildFilterCondition(view.getFilters(), params);
+        List<String> order = new ArrayList<>();
+        if (view.isSorted()) {
+            order.add(view.getSortColumn());
+            order.addAll(keyColumns);
+        }
+        return QueryBuilder.buildOrderedQuery(table, columns, condition, order, view.isDescending());
+    }
+
+    public boolean isKeyset() {
+        return keyIndexes != null;
+    }
+
+    private boolean useKeyset() {
+        return isKeyset() && !view.isSorted();
+    }
+
+    /**
+     * Reports {@code rows} (e.g. from information_schema) as the likely
+     * total until the real end of the data is found.
+     */
+    public void setEstimatedRowCount(long rows) {
+        int before = getRowCount();
+        estimatedRows = rows;
+        fireRowCountChanged(before);
+    }
+
+    public void setExactRowCount(long rows) {
+        int before = getRowCount();
+        exactRows = (int) Math.min(rows, Integer.MAX_VALUE);
+        upperBound = Integer.MAX_VALUE;
+        fireRowCountChanged(before);
+    }
+
+    private void fireRowCountChanged(int before) {
+        int after = getRowCount();
+        if (after > before) {
+            fireTableRowsInserted(before, after - 1);
+        } else if (after < before) {
+            fireTableRowsDeleted(after, before - 1);
+        }
+    }
+
+    public long getEstimatedRowCount() {
+        return estimatedRows;
+    }
+
+    public boolean isExhausted() {
+        return exactRows >= 0;
+    }
+
+    public int getLoadedRowCount() {
+        return loadedEnd;
+    }
+
+    /**
+     * Whether every row is held in memory, so the grid can be sorted
+     * without going back to the server.
+     */
+    public boolean isFullyLoaded() {
+        if (exactRows < 0) {
+            return false;
+        }
+        for (int page = 0; page < getPageCount(); page++) {
+            if (!pages.containsKey(page)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPageCount() {
+        return (getRowCount() + pageSize - 1) / pageSize;
+    }
+
+    @Override
+    public int getRowCount() {
+        if (exactRows >= 0) {
+            return exactRows;
+        }
+        long count = Math.max((long) loadedEnd + pageSize, estimatedRows);
+        return (int) Math.min(Math.min(count, upperBound), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return isKeyset() && (edits.containsKey(rowIndex) || fetchedRow(rowIndex) != null);
+    }
+
+    /**
+     * Records an edit; setting a cell back to the value read clears it.
+     */
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex) {
+        EditedRow edited = edits.get(rowIndex);
+        if (edited == null) {
+            Object[] row = fetchedRow(rowIndex);
+            if (row == null || !isKeyset()) {
+                return;
+            }
+            edited = new EditedRow(row);
+            edits.put(rowIndex, edited);
+        }
+        edited.values[columnIndex] = value;
+        edited.dirty.set(columnIndex, !sameValue(value, edited.original[columnIndex]));
+        fireTableCellUpdated(rowIndex, columnIndex);
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        return Objects.equals(a, b) || (a != null && b != null && a.toString().equals(b.toString()));
+    }
+
+    private Object[] fetchedRow(int rowIndex) {
+        Object[][] rows = pages.get(rowIndex / pageSize);
+        int offset = rowIndex % pageSize;
+        return rows != null && offset < rows.length ? rows[offset] : null;
+    }
+
+    public boolean isDirty(int rowIndex, int columnIndex) {
+        EditedRow edited = edits.get(rowIndex);
+        return edited != null && edited.dirty.get(columnIndex);
+    }
+
+    public int getDirtyRowCount() {
+        return (int) edits.values().stream().filter(edited -> !edited.dirty.isEmpty()).count();
+    }
+
+    /**
+     * Returns the rows with unsaved edits, in row order.
+     */
+    public List<RowEdit> getPendingEdits() {
+        List<RowEdit> pending = new ArrayList<>();
+        edits.forEach((rowIndex, edited) -> {
+            if (edited.dirty.isEmpty()) {
+                return;
+            }
+            Map<String, Object> key = new LinkedHashMap<>();
+            for (int k = 0; k < keyIndexes.length; k++) {
+                key.put(keyColumns.get(k), edited.original[keyIndexes[k]]);
+            }
+            Map<String, Object> oldValues = new LinkedHashMap<>();
+            Map<String, Object> newValues = new LinkedHashMap<>();
+            edited.dirty.stream().forEach(column -> {
+                oldValues.put(columnNames[column], edited.original[column]);
+                newValues.put(columnNames[column], edited.values[column]);
+            });
+            pending.add(new RowEdit(rowIndex, key, oldValues, newValues));
+        });
+        return pending;
+    }
+
+    /**
+     * Marks the edits of {@code saved} as written: their values are kept
+     * and become the values later edits are checked against.
+     */
+    public void editsSaved(List<RowEdit> saved) {
+        for (RowEdit edit : saved) {
+            EditedRow edited = edits.get(edit.getRow());
+            if (edited != null) {
+                edited.dirty.stream().forEach(column -> edited.original[column] = edited.values[column]);
+                edited.dirty.clear();
+                fireTableRowsUpdated(edit.getRow(), edit.getRow());
+            }
+        }
+    }
+
+    public void discardEdits() {
+        edits.clear();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        EditedRow edited = edits.get(rowIndex);
+        if (edited != null) {
+            return edited.values[columnIndex];
+        }
+        int page = rowIndex / pageSize;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = rowIndex % pageSize;
+        if (offset >= pageSize * 3 / 4) {
+            requestPage(page + 1);
+        }
+        return offset < rows.length ? rows[offset][columnIndex] : null;
+    }
+
+    /**
+     * A fetched row with edits: {@code original} holds the values read (or
+     * last saved), {@code values} the values shown.
+     */
+    private static final class EditedRow {
+        private final Object[] original;
+        private final Object[] values;
+        private final BitSet dirty = new BitSet();
+
+        EditedRow(Object[] row) {
+            this.original = row.clone();
+            this.values = row.clone();
+        }
+    }
+
+    /**
+     * Unsaved edits of one row: its key, and the old and new values of the
+     * changed columns.
+     */
+    public static final class RowEdit {
+        private final int row;
+        private final Map<String, Object> key;
+        private final Map<String, Object> oldValues;
+        private final Map<String, Object> newValues;
+
+        RowEdit(int row, Map<String, Object> key, Map<String, Object> oldValues, Map<String, Object> newValues) {
+            this.row = row;
+            this.key = key;
+            this.oldValues = oldValues;
+            this.newValues = newValues;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public Map<String, Object> getKey() {
+            return key;
+        }
+
+        public Map<String, Object> getOldValues() {
+            return oldValues;
+        }
+
+        public Map<String, Object> getNewValues() {
+            return newValues;
+        }
+    }
+}
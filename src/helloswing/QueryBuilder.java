@@ -1,11 +1,15 @@
 package helloswing;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
 public class QueryBuilder {
+    private static final String[] FILTER_OPERATORS = { "<=", ">=", "<>", "!=", "=", "<", ">" };
 
     private static String formatValue(Object value) {
         if (value == null) {
@@ -60,9 +64,7 @@ public class QueryBuilder {
             throw new IllegalArgumentException("Table name cannot be null or empty");
         }
         StringBuilder query = new StringBuilder("SELECT ");
-        String[] columnArray = columns.split(",");
-        String escapedColumns = Arrays.stream(columnArray).map(String::trim).map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));        
-        query.append(escapedColumns).append(" FROM ").append(escapeTableName(table));        
+        query.append(buildColumnList(columns)).append(" FROM ").append(escapeTableName(table));        
         if (conditions != null && !conditions.isEmpty()) {
             String whereClause = conditions.entrySet().stream().map(e -> String.format("%s = %s", escapeColumnName(e.getKey()), formatValue(e.getValue()))).collect(Collectors.joining(" AND "));
             query.append(" WHERE ").append(whereClause);
@@ -70,6 +72,201 @@ public class QueryBuilder {
         return query.toString();
     }
 
+    /**
+     * Like {@link #buildSelectQuery(String, String, Map)}, but with a
+     * placeholder for each condition value so the statement can be prepared
+     * once and reused. The values to bind are appended to {@code params} in
+     * order; a null value is matched with IS NULL and binds nothing.
+     */
+    public static String buildSelectQuery(String table, String columns, Map<String, Object> conditions,
+            List<Object> params) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        StringBuilder query = new StringBuilder("SELECT ");
+        query.append(buildColumnList(columns)).append(" FROM ").append(escapeTableName(table));
+        if (conditions != null && !conditions.isEmpty()) {
+            StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+            conditions.forEach((column, value) -> {
+                if (value == null) {
+                    where.add(escapeColumnName(column) + " IS NULL");
+                } else {
+                    where.add(escapeColumnName(column) + " = ?");
+                    params.add(value);
+                }
+            });
+            query.append(where);
+        }
+        return query.toString();
+    }
+
+    public static String buildColumnList(String columns) {
+        if (columns == null || columns.trim().isEmpty() || columns.trim().equals("*")) {
+            return "*";
+        }
+        String[] columnArray = columns.split(",");
+        return Arrays.stream(columnArray).map(String::trim).map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));
+    }
+
+    public static String buildKeysetPageQuery(String table, String columns, List<String> keyColumns, boolean afterKey) {
+        return buildKeysetPageQuery(table, columns, null, keyColumns, afterKey);
+    }
+
+    /**
+     * Page in key order starting after a key. {@code condition} (see
+     * {@link #buildFilterCondition}) is combined with the key condition and
+     * may be null; its parameters come first.
+     */
+    public static String buildKeysetPageQuery(String table, String columns, String condition, List<String> keyColumns,
+            boolean afterKey) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Key columns cannot be null or empty");
+        }
+        String keys = keyColumns.stream().map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));
+        StringBuilder query = new StringBuilder("SELECT ").append(buildColumnList(columns))
+            .append(" FROM ").append(escapeTableName(table));
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        if (condition != null) {
+            where.add("(" + condition + ")");
+        }
+        if (afterKey) {
+            where.add(buildKeyComparison(keyColumns, ">"));
+        }
+        query.append(where).append(" ORDER BY ").append(keys).append(" LIMIT ?");
+        return query.toString();
+    }
+
+    public static String buildOffsetPageQuery(String table, String columns) {
+        return buildOrderedOffsetPageQuery(table, columns, null, null, false);
+    }
+
+    /**
+     * LIMIT/OFFSET page in key order, for jumping to a page whose
+     * predecessor's last key is not known.
+     */
+    public static String buildOrderedOffsetPageQuery(String table, String columns, List<String> keyColumns) {
+        return buildOrderedOffsetPageQuery(table, columns, null, keyColumns, false);
+    }
+
+    /**
+     * LIMIT/OFFSET page of the rows matching {@code condition} (may be
+     * null), ordered by {@code orderColumns} (may be empty) in one
+     * direction.
+     */
+    public static String buildOrderedOffsetPageQuery(String table, String columns, String condition,
+            List<String> orderColumns, boolean descending) {
+        return buildOrderedQuery(table, columns, condition, orderColumns, descending) + " LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * Every row matching {@code condition} (may be null), ordered by
+     * {@code orderColumns} (may be empty) in one direction.
+     */
+    public static String buildOrderedQuery(String table, String columns, String condition,
+            List<String> orderColumns, boolean descending) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        StringBuilder query = new StringBuilder("SELECT ").append(buildColumnList(columns))
+            .append(" FROM ").append(escapeTableName(table));
+        if (condition != null) {
+            query.append(" WHERE ").append(condition);
+        }
+        if (orderColumns != null && !orderColumns.isEmpty()) {
+            String direction = descending ? " DESC" : "";
+            query.append(" ORDER BY ").append(orderColumns.stream()
+                .map(column -> escapeColumnName(column) + direction).collect(Collectors.joining(", ")));
+        }
+        return query.toString();
+    }
+
+    public static String buildCountQuery(String table, String condition) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        return "SELECT COUNT(*) FROM " + escapeTableName(table) + (condition != null ? " WHERE " + condition : "");
+    }
+
+    /**
+     * Translates the filter typed for each column into a condition with
+     * bound parameters, which are appended to {@code params}; returns null
+     * if there is no filter. A filter is one of:
+     * <ul>
+     * <li>{@code NULL} or {@code !NULL}: IS NULL / IS NOT NULL</li>
+     * <li>{@code =, !=, <>, <, <=, >, >=} followed by a value: that comparison</li>
+     * <li>text containing {@code *}: LIKE with {@code *} as the wildcard</li>
+     * <li>any other text: values starting with it, which can use an index</li>
+     * </ul>
+     */
+    public static String buildFilterCondition(Map<String, String> filters, List<Object> params) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        StringJoiner condition = new StringJoiner(" AND ");
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            String column = escapeColumnName(filter.getKey());
+            String text = filter.getValue().trim();
+            if (text.equalsIgnoreCase("NULL")) {
+                condition.add(column + " IS NULL");
+                continue;
+            }
+            if (text.equalsIgnoreCase("!NULL")) {
+                condition.add(column + " IS NOT NULL");
+                continue;
+            }
+            String operator = null;
+            for (String candidate : FILTER_OPERATORS) {
+                if (text.startsWith(candidate)) {
+                    operator = candidate;
+                    break;
+                }
+            }
+            if (operator != null) {
+                condition.add(column + " " + operator + " ?");
+                params.add(text.substring(operator.length()).trim());
+            } else {
+                String pattern = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+                condition.add(column + " LIKE ?");
+                params.add(pattern.contains("*") ? pattern.replace('*', '%') : pattern + "%");
+            }
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Builds a LOAD DATA LOCAL INFILE statement for a CSV/TSV file with one
+     * header line. {@code targetColumns} maps each file column to a table
+     * column, or to null to skip it; empty values of columns listed in
+     * {@code nullIfEmpty} are loaded as NULL.
+     */
+    public static String buildLoadDataQuery(String path, String table, char delimiter, boolean crlf,
+            List<String> targetColumns, Set<String> nullIfEmpty) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        StringBuilder query = new StringBuilder("LOAD DATA LOCAL INFILE ")
+            .append(formatValue(path.replace("\\", "\\\\")))
+            .append(" INTO TABLE ").append(escapeTableName(table))
+            .append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY '").append(delimiter == '\t' ? "\\t" : String.valueOf(delimiter))
+            .append("' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' LINES TERMINATED BY '").append(crlf ? "\\r\\n" : "\\n")
+            .append("' IGNORE 1 LINES (");
+        StringJoiner variables = new StringJoiner(", ");
+        StringJoiner assignments = new StringJoiner(", ");
+        for (int i = 0; i < targetColumns.size(); i++) {
+            String column = targetColumns.get(i);
+            variables.add("@c" + i);
+            if (column != null) {
+                String value = nullIfEmpty.contains(column) ? "NULLIF(@c" + i + ", '')" : "@c" + i;
+                assignments.add(escapeColumnName(column) + " = " + value);
+            }
+        }
+        query.append(variables).append(") SET ").append(assignments);
+        return query.toString();
+    }
+
     public static String buildDeleteQuery(String table, String where) {
         if (table == null || table.trim().isEmpty()) {
             throw new IllegalArgumentException("Table name cannot be null or empty");
@@ -81,6 +278,118 @@ public class QueryBuilder {
         return query.toString();
     }
 
+    /**
+     * Builds a WHERE condition with one parameter per column. With
+     * {@code nullSafe} the columns are compared with {@code <=>}, so NULL
+     * values match as well.
+     */
+    public static String buildRowCondition(Collection<String> columns, boolean nullSafe) {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Row condition needs at least one column");
+        }
+        String operator = nullSafe ? " <=> ?" : " = ?";
+        return columns.stream().map(column -> escapeColumnName(column) + operator).collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Updates the single row matching {@code rowColumns}. Unless the columns
+     * form a unique key, pass {@code fallback} to compare null-safely and
+     * add LIMIT 1.
+     */
+    public static String buildRowUpdateQuery(String table, Collection<String> dataColumns, Collection<String> rowColumns,
+            boolean fallback) {
+        if (table == null || dataColumns == null || dataColumns.isEmpty()) {
+            throw new IllegalArgumentException("Table name and data cannot be null or empty");
+        }
+        String setClause = dataColumns.stream().map(column -> escapeColumnName(column) + " = ?").collect(Collectors.joining(", "));
+        return "UPDATE " + escapeTableName(table) + " SET " + setClause + " WHERE "
+            + buildRowCondition(rowColumns, fallback) + (fallback ? " LIMIT 1" : "");
+    }
+
+    /**
+     * Updates the row with the given key only if each of
+     * {@code dataColumns} still holds the value it was read with. Parameters:
+     * the new values, the key values, then the old values.
+     */
+    public static String buildCheckedRowUpdateQuery(String table, Collection<String> dataColumns,
+            Collection<String> keyColumns) {
+        if (table == null || dataColumns == null || dataColumns.isEmpty()) {
+            throw new IllegalArgumentException("Table name and data cannot be null or empty");
+        }
+        String setClause = dataColumns.stream().map(column -> escapeColumnName(column) + " = ?").collect(Collectors.joining(", "));
+        return "UPDATE " + escapeTableName(table) + " SET " + setClause + " WHERE "
+            + buildRowCondition(keyColumns, false) + " AND " + buildRowCondition(dataColumns, true);
+    }
+
+    public static String buildRowDeleteQuery(String table, Collection<String> rowColumns, boolean fallback) {
+        if (table == null || table.trim().isEmpty()) {
+            throw new IllegalArgumentException("Table name cannot be null or empty");
+        }
+        return "DELETE FROM " + escapeTableName(table) + " WHERE "
+            + buildRowCondition(rowColumns, fallback) + (fallback ? " LIMIT 1" : "");
+    }
+
+    public static String qualifiedTableName(String database, String table) {
+        return escapeTableName(database) + "." + escapeTableName(table);
+    }
+
+    /**
+     * Compares the key columns with as many parameters, e.g.
+     * {@code (`a`, `b`) > (?, ?)}.
+     */
+    private static String buildKeyComparison(List<String> keyColumns, String operator) {
+        String keys = keyColumns.stream().map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));
+        if (keyColumns.size() == 1) {
+            return keys + " " + operator + " ?";
+        }
+        String placeholders = keyColumns.stream().map(key -> "?").collect(Collectors.joining(", "));
+        return "(" + keys + ") " + operator + " (" + placeholders + ")";
+    }
+
+    /**
+     * Selects the key of the row {@code ?} rows past the start, or past the
+     * key given as the first parameters when {@code afterKey} is set; used
+     * to cut a table into key ranges by reading only the index.
+     */
+    public static String buildKeyBoundaryQuery(String database, String table, List<String> keyColumns, boolean afterKey) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Key columns cannot be null or empty");
+        }
+        String keys = keyColumns.stream().map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));
+        return "SELECT " + keys + " FROM " + qualifiedTableName(database, table)
+            + (afterKey ? " WHERE " + buildKeyComparison(keyColumns, ">") : "")
+            + " ORDER BY " + keys + " LIMIT 1 OFFSET ?";
+    }
+
+    /**
+     * Copies the rows with keys in a range from one table to another on the
+     * server. Parameters: the exclusive lower key if {@code lower} is set,
+     * then the inclusive upper key if {@code upper} is set. Without key
+     * columns the whole table is copied.
+     */
+    public static String buildCopyRangeQuery(String sourceDatabase, String sourceTable, String targetDatabase,
+            String targetTable, List<String> columns, List<String> keyColumns, boolean lower, boolean upper) {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("Columns cannot be null or empty");
+        }
+        String columnList = columns.stream().map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", "));
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(qualifiedTableName(targetDatabase, targetTable))
+            .append(" (").append(columnList).append(") SELECT ").append(columnList)
+            .append(" FROM ").append(qualifiedTableName(sourceDatabase, sourceTable));
+        if (keyColumns != null && !keyColumns.isEmpty()) {
+            StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+            if (lower) {
+                where.add(buildKeyComparison(keyColumns, ">"));
+            }
+            if (upper) {
+                where.add(buildKeyComparison(keyColumns, "<="));
+            }
+            query.append(where).append(" ORDER BY ")
+                .append(keyColumns.stream().map(QueryBuilder::escapeColumnName).collect(Collectors.joining(", ")));
+        }
+        return query.toString();
+    }
+
     public static String buildCreateTableQuery(String tableName, String columns) {
         if (tableName == null || tableName.trim().isEmpty()) {
             throw new IllegalArgumentException("Table name cannot be null or empty");
@@ -0,0 +1,462 @@
+package helloswing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency, row and byte counts of every statement run on pooled
+ * connections, grouped by kind of operation. {@link ConnectionPool} wraps
+ * the statements and metadata it hands out with {@link #meter} so callers
+ * need no changes. Latency is measured up to the first result; rows and
+ * bytes of a result set are added when it is exhausted or closed. The same
+ * wrapper applies the {@link QueryTimeouts} for the classified operation
+ * unless the caller set a timeout itself.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+    public static final String OBJECT_NAME = "helloswing:type=QueryMetrics";
+
+    private static final Logger LOGGER = Logger.getLogger(QueryMetrics.class.getName());
+
+    public enum Operation {
+        SELECT, DML, DDL, METADATA, OTHER
+    }
+
+    private static final class Counters {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    private final Map<Operation, Counters> counters = new EnumMap<>(Operation.class);
+    private volatile boolean enabled = true;
+    private volatile QueryTimeouts timeouts;
+
+    public QueryMetrics() {
+        for (Operation operation : Operation.values()) {
+            counters.put(operation, new Counters());
+        }
+    }
+
+    public static Operation classify(String sql) {
+        if (sql == null) {
+            return Operation.OTHER;
+        }
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        if (startsWith(sql, start, "SELECT") || startsWith(sql, start, "WITH")) {
+            return containsIgnoreCase(sql, "information_schema") ? Operation.METADATA : Operation.SELECT;
+        }
+        if (startsWith(sql, start, "SHOW") || startsWith(sql, start, "DESC") || startsWith(sql, start, "EXPLAIN")) {
+            return Operation.METADATA;
+        }
+        if (startsWith(sql, start, "INSERT") || startsWith(sql, start, "UPDATE") || startsWith(sql, start, "DELETE")
+                || startsWith(sql, start, "REPLACE") || startsWith(sql, start, "LOAD")) {
+            return Operation.DML;
+        }
+        if (startsWith(sql, start, "CREATE") || startsWith(sql, start, "DROP") || startsWith(sql, start, "ALTER")
+                || startsWith(sql, start, "TRUNCATE") || startsWith(sql, start, "RENAME")) {
+            return Operation.DDL;
+        }
+        return Operation.OTHER;
+    }
+
+    private static boolean startsWith(String sql, int offset, String keyword) {
+        return sql.regionMatches(true, offset, keyword, 0, keyword.length());
+    }
+
+    private static boolean containsIgnoreCase(String sql, String word) {
+        for (int i = 0; i + word.length() <= sql.length(); i++) {
+            if (sql.regionMatches(true, i, word, 0, word.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void record(Operation operation, long nanos, long rows, long bytes, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        Counters c = counters.get(operation);
+        c.latency.record(nanos / 1000);
+        c.rows.add(rows);
+        c.bytes.add(bytes);
+        if (failed) {
+            c.errors.increment();
+        }
+    }
+
+    void addRows(Operation operation, long rows, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        Counters c = counters.get(operation);
+        c.rows.add(rows);
+        c.bytes.add(bytes);
+    }
+
+    @Override
+    public List<OperationStats> getOperationStats() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Map.Entry<Operation, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            LatencyHistogram h = c.latency;
+            stats.add(new OperationStats(entry.getKey().name(), h.getCount(), c.errors.sum(), c.rows.sum(),
+                c.bytes.sum(), h.getMean(), h.getValueAtPercentile(50), h.getValueAtPercentile(90),
+                h.getValueAtPercentile(99), h.getValueAtPercentile(99.9), h.getMax()));
+        }
+        return stats;
+    }
+
+    @Override
+    public long getStatementCount() {
+        return counters.values().stream().mapToLong(c -> c.latency.getCount()).sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return counters.values().stream().mapToLong(c -> c.errors.sum()).sum();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public QueryTimeouts getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(QueryTimeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    public void reset() {
+        for (Counters c : counters.values()) {
+            c.latency.reset();
+            c.errors.reset();
+            c.rows.reset();
+            c.bytes.reset();
+        }
+    }
+
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register query metrics MBean", e);
+        }
+    }
+
+    public void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to unregister query metrics MBean", e);
+        }
+    }
+
+    /**
+     * Wraps a statement so its executions are recorded. {@code sql} is the
+     * text a prepared statement was created with, or null for a plain
+     * statement whose SQL is passed to each execute call.
+     */
+    Statement meter(Statement stmt, String sql) {
+        if (!enabled && timeouts == null) {
+            return stmt;
+        }
+        Class<?> type = stmt instanceof CallableStatement ? CallableStatement.class
+            : stmt instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+            new Class<?>[] { type }, new StatementHandler(stmt, sql));
+    }
+
+    DatabaseMetaData meter(DatabaseMetaData metaData) {
+        if (!enabled) {
+            return metaData;
+        }
+        return (DatabaseMetaData) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+            new Class<?>[] { DatabaseMetaData.class }, (proxy, method, args) -> {
+                if (method.getReturnType() != ResultSet.class) {
+                    return invoke(metaData, method, args);
+                }
+                long start = System.nanoTime();
+                try {
+                    ResultSet rs = (ResultSet) invoke(metaData, method, args);
+                    record(Operation.METADATA, System.nanoTime() - start, 0, 0, false);
+                    return meter(rs, Operation.METADATA);
+                } catch (Throwable t) {
+                    record(Operation.METADATA, System.nanoTime() - start, 0, 0, true);
+                    throw t;
+                }
+            });
+    }
+
+    private ResultSet meter(ResultSet rs, Operation operation) {
+        if (rs == null) {
+            return null;
+        }
+        return (ResultSet) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class }, new ResultSetHandler(rs, operation));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement stmt;
+        private final String sql;
+        private final Operation preparedOperation;
+        private Operation lastOperation;
+        private String batchSql;
+        private boolean explicitTimeout;
+
+        StatementHandler(Statement stmt, String sql) {
+            this.stmt = stmt;
+            this.sql = sql;
+            this.preparedOperation = sql == null ? null : classify(sql);
+            this.lastOperation = preparedOperation != null ? preparedOperation : Operation.OTHER;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getResultSet".equals(name)) {
+                return meter((ResultSet) QueryMetrics.invoke(stmt, method, args), lastOperation);
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("addBatch".equals(name) && args[0] instanceof String) {
+                batchSql = (String) args[0];
+            }
+            if ("setQueryTimeout".equals(name)) {
+                explicitTimeout = true;
+            }
+            if (!name.startsWith("execute")) {
+                return QueryMetrics.invoke(stmt, method, args);
+            }
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                : sql != null ? sql : batchSql;
+            Operation operation = preparedOperation != null && text == sql ? preparedOperation : classify(text);
+            lastOperation = operation;
+            QueryTimeouts currentTimeouts = timeouts;
+            if (currentTimeouts != null && !explicitTimeout) {
+                currentTimeouts.apply(stmt, operation);
+            }
+            long requestBytes = text == null ? 0 : text.length();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryMetrics.invoke(stmt, method, args);
+            } catch (Throwable t) {
+                record(operation, System.nanoTime() - start, 0, requestBytes, true);
+                throw t;
+            }
+            long elapsed = System.nanoTime() - start;
+            long rows = 0;
+            if (result instanceof Integer || result instanceof Long) {
+                rows = Math.max(0, ((Number) result).longValue());
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+            } else if (Boolean.FALSE.equals(result)) {
+                rows = Math.max(0, stmt.getUpdateCount());
+            }
+            record(operation, elapsed, rows, requestBytes, false);
+            return result instanceof ResultSet ? meter((ResultSet) result, operation) : result;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet rs;
+        private final Operation operation;
+        private long rows;
+        private long bytes;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet rs, Operation operation) {
+            this.rs = rs;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                report();
+            }
+            Object result = QueryMetrics.invoke(rs, method, args);
+            switch (name) {
+                case "next":
+                    if ((Boolean) result) {
+                        rows++;
+                    } else {
+                        report();
+                    }
+                    break;
+                case "getString":
+                case "getNString":
+                    bytes += result == null ? 0 : ((String) result).length();
+                    break;
+                case "getBytes":
+                    bytes += result == null ? 0 : ((byte[]) result).length;
+                    break;
+                case "getObject":
+                    bytes += estimateSize(result);
+                    break;
+                default:
+                    if (name.startsWith("get") && method.getReturnType().isPrimitive()) {
+                        bytes += 8;
+                    }
+                    break;
+            }
+            return result;
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                addRows(operation, rows, bytes);
+            }
+        }
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return 8;
+    }
+
+    /**
+     * Snapshot of one operation type. Latencies are in microseconds.
+     */
+    public static final class OperationStats {
+        private final String operation;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final long bytes;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+
+        OperationStats(String operation, long count, long errors, long rows, long bytes, double meanMicros,
+                long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+            this.operation = operation;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP90Micros() {
+            return p90Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getP999Micros() {
+            return p999Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package helloswing;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link QueryMetrics}, registered as
+ * {@value QueryMetrics#OBJECT_NAME}.
+ */
+public interface QueryMetricsMXBean {
+    List<QueryMetrics.OperationStats> getOperationStats();
+
+    long getStatementCount();
+
+    long getErrorCount();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+}
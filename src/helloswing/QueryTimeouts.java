@@ -0,0 +1,54 @@
+package helloswing;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Query timeouts in seconds per kind of operation, applied with
+ * {@link Statement#setQueryTimeout} before each statement on a pooled
+ * connection runs. When a timeout expires the driver kills the query and
+ * the execute call fails with an SQLTimeoutException. Zero means no limit.
+ *
+ * Defaults can be overridden with system properties such as
+ * {@code -Dhelloswing.timeout.select=30}.
+ */
+public class QueryTimeouts {
+    public static final String PROPERTY_PREFIX = "helloswing.timeout.";
+
+    private final AtomicIntegerArray seconds = new AtomicIntegerArray(QueryMetrics.Operation.values().length);
+
+    public QueryTimeouts() {
+        set(QueryMetrics.Operation.SELECT, 300);
+        set(QueryMetrics.Operation.DML, 600);
+        set(QueryMetrics.Operation.DDL, 0);
+        set(QueryMetrics.Operation.METADATA, 60);
+        set(QueryMetrics.Operation.OTHER, 0);
+    }
+
+    public static QueryTimeouts fromSystemProperties() {
+        QueryTimeouts timeouts = new QueryTimeouts();
+        for (QueryMetrics.Operation operation : QueryMetrics.Operation.values()) {
+            Integer value = Integer.getInteger(PROPERTY_PREFIX + operation.name().toLowerCase(), null);
+            if (value != null) {
+                timeouts.set(operation, value);
+            }
+        }
+        return timeouts;
+    }
+
+    public int get(QueryMetrics.Operation operation) {
+        return seconds.get(operation.ordinal());
+    }
+
+    public void set(QueryMetrics.Operation operation, int timeoutSeconds) {
+        seconds.set(operation.ordinal(), Math.max(0, timeoutSeconds));
+    }
+
+    void apply(Statement stmt, QueryMetrics.Operation operation) throws SQLException {
+        int timeout = get(operation);
+        if (stmt.getQueryTimeout() != timeout) {
+            stmt.setQueryTimeout(timeout);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package helloswing;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Client-side cache of query results, keyed by catalog, normalized SQL and
+ * parameter values. Entries are evicted least recently used first once the
+ * estimated size exceeds the memory budget, and every entry that reads a
+ * table is dropped when the application writes to that table.
+ *
+ * A result is only stored if no invalidation happened while it was being
+ * read, so a concurrent write can never leave a stale entry behind.
+ */
+public class ResultCache {
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final class Entry {
+        private final Object[][] rows;
+        private final Set<String> tables;
+        private final long bytes;
+
+        Entry(Object[][] rows, Set<String> tables, long bytes) {
+            this.rows = rows;
+            this.tables = tables;
+            this.bytes = bytes;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long maxBytes;
+    private long bytes;
+
+    public ResultCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes memory budget; 0 disables the cache
+     */
+    public ResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static String tableKey(String database, String table) {
+        return (database == null ? "" : database.toLowerCase()) + "." + table.toLowerCase();
+    }
+
+    /**
+     * Collapses whitespace outside quoted strings and identifiers so that
+     * formatting differences do not produce separate entries.
+     */
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char ch = sql.charAt(i);
+            if (quote != 0) {
+                normalized.append(ch);
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(ch)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                if (ch == '\'' || ch == '"' || ch == '`') {
+                    quote = ch;
+                }
+                normalized.append(ch);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String key(String catalog, String sql, List<Object> params) {
+        return catalog + '\u0000' + normalize(sql) + '\u0000' + Arrays.deepToString(params.toArray());
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Current invalidation generation; pass it to {@link #put} so results
+     * read before a write are discarded.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public synchronized Object[][] get(String catalog, String sql, List<Object> params) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = entries.get(key(catalog, sql, params));
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.rows;
+    }
+
+    /**
+     * Stores a result that reads {@code tables} (see {@link #tableKey}).
+     * Ignored if the cache was invalidated since {@code readGeneration}.
+     */
+    public synchronized void put(String catalog, String sql, List<Object> params, Set<String> tables,
+            Object[][] rows, long readGeneration) {
+        if (!isEnabled() || readGeneration != generation.get()) {
+            return;
+        }
+        long size = estimateSize(rows);
+        if (size > maxBytes / 4) {
+            return;
+        }
+        Entry previous = entries.put(key(catalog, sql, params), new Entry(rows, tables, size));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += size;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    private static long estimateSize(Object[][] rows) {
+        long size = 64;
+        for (Object[] row : rows) {
+            size += 16 + 8L * row.length;
+            for (Object value : row) {
+                if (value instanceof String) {
+                    size += 40 + 2L * ((String) value).length();
+                } else if (value instanceof byte[]) {
+                    size += 16 + ((byte[]) value).length;
+                } else if (value != null) {
+                    size += 24;
+                }
+            }
+        }
+        return size;
+    }
+
+    public synchronized void invalidateTable(String database, String table) {
+        generation.incrementAndGet();
+        String tableKey = tableKey(database, table);
+        removeIf(entry -> entry.tables.contains(tableKey));
+    }
+
+    public synchronized void invalidateDatabase(String database) {
+        generation.incrementAndGet();
+        String prefix = (database == null ? "" : database.toLowerCase()) + ".";
+        removeIf(entry -> entry.tables.stream().anyMatch(t -> t.startsWith(prefix)));
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void removeIf(Predicate<Entry> predicate) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (predicate.test(entry)) {
+                bytes -= entry.bytes;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        if (maxBytes <= 0) {
+            invalidateAll();
+        } else {
+            evict();
+        }
+    }
+
+    public synchronized long getSizeBytes() {
+        return bytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,272 @@
+package helloswing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rows of a query result written to a temporary file and read back through
+ * memory-mapped segments. Each cell is stored as a type tag followed by its
+ * value. Only the file offset of every {@value #BLOCK_ROWS}th row is kept on
+ * the heap, and the most recently read block is kept decoded because a
+ * table reads neighbouring cells. Values of types without an encoding of
+ * their own are stored as text.
+ */
+final class ResultSpillFile implements AutoCloseable {
+    static final int BLOCK_ROWS = 64;
+
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte STRING = 4;
+    private static final byte BYTES = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte TEXT = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte DATE = 10;
+    private static final byte TIME = 11;
+    private static final byte TIMESTAMP = 12;
+
+    private final Path file;
+    private final int columnCount;
+    private final int rowCount;
+    private final long[] blockOffsets;
+    private final int[] blockSegments;
+    private final long[] segmentStarts;
+    private final MappedByteBuffer[] segments;
+    private int cachedBlock = -1;
+    private Object[][] cachedRows;
+
+    private ResultSpillFile(Path file, int columnCount, int rowCount, long[] blockOffsets, long fileSize)
+            throws IOException {
+        this.file = file;
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+        this.blockOffsets = blockOffsets;
+        this.blockSegments = new int[blockOffsets.length];
+        List<Long> starts = new ArrayList<>();
+        for (int block = 0; block < blockOffsets.length; block++) {
+            long end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : fileSize;
+            if (end - blockOffsets[block] > MAX_SEGMENT_BYTES) {
+                throw new IOException("A block of " + BLOCK_ROWS + " rows exceeds " + MAX_SEGMENT_BYTES + " bytes");
+            }
+            if (starts.isEmpty() || end - starts.get(starts.size() - 1) > MAX_SEGMENT_BYTES) {
+                starts.add(blockOffsets[block]);
+            }
+            blockSegments[block] = starts.size() - 1;
+        }
+        this.segmentStarts = new long[starts.size()];
+        this.segments = new MappedByteBuffer[starts.size()];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                segmentStarts[i] = starts.get(i);
+                long end = i + 1 < segments.length ? starts.get(i + 1) : fileSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStarts[i], end - segmentStarts[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes every remaining row of {@code rs} to a new file in
+     * {@code directory}. The file is deleted again if writing fails.
+     */
+    static ResultSpillFile write(ResultSet rs, int columnCount, Path directory) throws SQLException, IOException {
+        Path file = Files.createTempFile(directory, "helloswing-result-", ".spill");
+        file.toFile().deleteOnExit();
+        try {
+            long[] blockOffsets = new long[16];
+            int rows = 0;
+            long size;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                Encoder encoder = new Encoder(channel);
+                while (rs.next()) {
+                    if (rows % BLOCK_ROWS == 0) {
+                        int block = rows / BLOCK_ROWS;
+                        if (block == blockOffsets.length) {
+                            blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                        }
+                        blockOffsets[block] = encoder.position();
+                    }
+                    for (int i = 1; i <= columnCount; i++) {
+                        encoder.write(rs.getObject(i));
+                    }
+                    rows++;
+                }
+                encoder.flush();
+                size = encoder.position();
+            }
+            int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+            return new ResultSpillFile(file, columnCount, rows, Arrays.copyOf(blockOffsets, blocks), size);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    long getSizeBytes() throws IOException {
+        return Files.size(file);
+    }
+
+    synchronized Object get(int row, int column) {
+        int block = row / BLOCK_ROWS;
+        if (block != cachedBlock) {
+            cachedRows = decodeBlock(block);
+            cachedBlock = block;
+        }
+        return cachedRows[row % BLOCK_ROWS][column];
+    }
+
+    private Object[][] decodeBlock(int block) {
+        int segment = blockSegments[block];
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position((int) (blockOffsets[block] - segmentStarts[segment]));
+        int rows = Math.min(BLOCK_ROWS, rowCount - block * BLOCK_ROWS);
+        Object[][] decoded = new Object[rows][columnCount];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                decoded[row][column] = read(buffer);
+            }
+        }
+        return decoded;
+    }
+
+    private static Object read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case BYTES:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return bytes;
+            case DATE:
+                return new java.sql.Date(buffer.getLong());
+            case TIME:
+                return new java.sql.Time(buffer.getLong());
+            case TIMESTAMP:
+                java.sql.Timestamp timestamp = new java.sql.Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            default:
+                byte[] utf8 = new byte[buffer.getInt()];
+                buffer.get(utf8);
+                String text = new String(utf8, StandardCharsets.UTF_8);
+                return tag == DECIMAL ? new BigDecimal(text) : tag == BIG_INTEGER ? new BigInteger(text) : text;
+        }
+    }
+
+    /**
+     * Deletes the file. The mappings stay valid until they are garbage
+     * collected, which on some platforms delays the actual removal.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        cachedRows = null;
+        cachedBlock = -1;
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Encodes cells into a heap buffer that is flushed to the channel when
+     * full; values larger than the buffer are written directly.
+     */
+    private static final class Encoder {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long flushed;
+
+        Encoder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void write(Object value) throws IOException {
+            if (value == null) {
+                ensure(1).put(NULL);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                ensure(5).put(INT).putInt(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                ensure(9).put(LONG).putLong((Long) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                ensure(9).put(DOUBLE).putDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                ensure(2).put(BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+            } else if (value instanceof byte[]) {
+                writeBytes(BYTES, (byte[]) value);
+            } else if (value instanceof java.sql.Timestamp) {
+                java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+                ensure(13).put(TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+            } else if (value instanceof java.sql.Date) {
+                ensure(9).put(DATE).putLong(((java.sql.Date) value).getTime());
+            } else if (value instanceof java.sql.Time) {
+                ensure(9).put(TIME).putLong(((java.sql.Time) value).getTime());
+            } else if (value instanceof BigDecimal) {
+                writeBytes(DECIMAL, value.toString().getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof BigInteger) {
+                writeBytes(BIG_INTEGER, value.toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                writeBytes(value instanceof String ? STRING : TEXT, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void writeBytes(byte tag, byte[] bytes) throws IOException {
+            ensure(5).put(tag).putInt(bytes.length);
+            if (bytes.length <= buffer.remaining()) {
+                buffer.put(bytes);
+                return;
+            }
+            flush();
+            ByteBuffer direct = ByteBuffer.wrap(bytes);
+            while (direct.hasRemaining()) {
+                flushed += channel.write(direct);
+            }
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package helloswing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Log file that is rolled over by size: when it would exceed
+ * {@code maxBytes}, {@code file} becomes {@code file.1}, {@code file.1}
+ * becomes {@code file.2} and so on, keeping {@code maxFiles} old files.
+ * Not thread-safe; {@link StatusLogger} writes to it from a single thread.
+ */
+public class RollingFileSink {
+    private static final Logger LOGGER = Logger.getLogger(RollingFileSink.class.getName());
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private BufferedWriter writer;
+    private long size;
+
+    public RollingFileSink(Path file, long maxBytes, int maxFiles) throws IOException {
+        if (maxBytes < 1 || maxFiles < 0) {
+            throw new IllegalArgumentException("maxBytes must be positive and maxFiles not negative");
+        }
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        open();
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        size = Files.size(file);
+    }
+
+    /**
+     * Appends newline-terminated {@code lines}, each prefixed with the
+     * current time. I/O errors are logged rather than thrown.
+     */
+    public void write(String lines) {
+        try {
+            if (writer == null) {
+                open();
+            }
+            String prefix = LocalDateTime.now().format(TIMESTAMP) + " ";
+            StringBuilder text = new StringBuilder(lines.length() + 32);
+            int start = 0;
+            int end;
+            while ((end = lines.indexOf('\n', start)) >= 0) {
+                text.append(prefix).append(lines, start, end + 1);
+                start = end + 1;
+            }
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            if (size > 0 && size + bytes.length > maxBytes) {
+                roll();
+            }
+            writer.write(text.toString());
+            writer.flush();
+            size += bytes.length;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write status log " + file, e);
+            close();
+        }
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        writer = null;
+        if (maxFiles == 0) {
+            Files.deleteIfExists(file);
+        } else {
+            Files.deleteIfExists(rolled(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                if (Files.exists(rolled(i))) {
+                    Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close status log " + file, e);
+        }
+        writer = null;
+    }
+}
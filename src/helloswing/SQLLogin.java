@@ -131,11 +131,10 @@ public class SQLLogin extends javax.swing.JFrame {
             DialogUtils.showErrorDialog(this, "Username or password cannot be empty");
             return;
         }
-        try {
-            java.sql.Connection conn = ConnectSQL.getInstance().getConnection(user, pass);
+        try (java.sql.Connection conn = ConnectSQL.getInstance().getConnection(user, pass)) {
             if (conn != null) {
                 isLogin = true;
-                new DatabaseManager(true, conn).setVisible(true);
+                new DatabaseManager(true, ConnectSQL.getInstance().getPool()).setVisible(true);
                 this.dispose();
             }
         } catch (SQLException e) {
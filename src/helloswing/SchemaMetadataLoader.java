@@ -0,0 +1,133 @@
+package helloswing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the tables, columns, keys and sizes of a schema with one query per
+ * kind on a single pooled connection. Everything read is stored in the
+ * {@link MetadataCache}, so opening a table right after needs no further
+ * metadata queries. Callers run it as a {@link TaskRunner} task, which
+ * bounds how many schemas load at once and lets Stop cancel them.
+ */
+public class SchemaMetadataLoader {
+    private static final String TABLES_QUERY = "SELECT TABLE_NAME, TABLE_ROWS, DATA_LENGTH + INDEX_LENGTH"
+        + " FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME";
+    private static final String COLUMNS_QUERY = "SELECT TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE,"
+        + " COLUMN_KEY, COLUMN_DEFAULT, EXTRA FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ?"
+        + " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    private static final String KEYS_QUERY = "SELECT TABLE_NAME, INDEX_NAME, COLUMN_NAME, NULLABLE"
+        + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ? AND NON_UNIQUE = 0"
+        + " ORDER BY TABLE_NAME, INDEX_NAME = 'PRIMARY' DESC, INDEX_NAME, SEQ_IN_INDEX";
+
+    public static final class SchemaMetadata {
+        private final String database;
+        private final List<String> tables;
+        private final long rows;
+        private final long bytes;
+
+        SchemaMetadata(String database, List<String> tables, long rows, long bytes) {
+            this.database = database;
+            this.tables = tables;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public List<String> getTables() {
+            return tables;
+        }
+
+        /**
+         * Sum of the server's row estimates of the schema's tables.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Data plus index size of the schema's tables.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final MetadataCache metadataCache;
+
+    public SchemaMetadataLoader(ConnectionPool pool, MetadataCache metadataCache) {
+        this.pool = pool;
+        this.metadataCache = metadataCache;
+    }
+
+    public SchemaMetadata load(String database) throws SQLException {
+        Map<String, Long> rowEstimates = new LinkedHashMap<>();
+        Map<String, List<ColumnInfo>> columns = new HashMap<>();
+        Map<String, Map<String, List<String>>> uniqueIndexes = new HashMap<>();
+        Map<String, Set<String>> nullableIndexes = new HashMap<>();
+        long totalRows = 0;
+        long totalBytes = 0;
+        try (Connection connection = pool.borrow()) {
+            try (PreparedStatement pstmt = connection.prepareStatement(TABLES_QUERY)) {
+                pstmt.setString(1, database);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        long rows = rs.getLong(2);
+                        rows = rs.wasNull() ? -1 : rows;
+                        rowEstimates.put(rs.getString(1), rows);
+                        totalRows += Math.max(0, rows);
+                        totalBytes += rs.getLong(3);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(COLUMNS_QUERY)) {
+                pstmt.setString(1, database);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        columns.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(new ColumnInfo(
+                            rs.getString(2), rs.getString(3), "YES".equalsIgnoreCase(rs.getString(4)),
+                            rs.getString(5), rs.getString(6), rs.getString(7)));
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(KEYS_QUERY)) {
+                pstmt.setString(1, database);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String table = rs.getString(1);
+                        String index = rs.getString(2);
+                        uniqueIndexes.computeIfAbsent(table, k -> new LinkedHashMap<>())
+                            .computeIfAbsent(index, k -> new ArrayList<>()).add(rs.getString(3));
+                        if ("YES".equalsIgnoreCase(rs.getString(4))) {
+                            nullableIndexes.computeIfAbsent(table, k -> new HashSet<>()).add(index);
+                        }
+                    }
+                }
+            }
+        }
+        List<String> tables = new ArrayList<>(rowEstimates.keySet());
+        metadataCache.putTables(database, tables);
+        for (Map.Entry<String, Long> entry : rowEstimates.entrySet()) {
+            String table = entry.getKey();
+            Map<String, List<String>> indexes = uniqueIndexes.getOrDefault(table, new LinkedHashMap<>());
+            List<String> primaryKey = indexes.getOrDefault("PRIMARY", new ArrayList<>());
+            List<String> rowKey = TableOperations.chooseRowKey(indexes, nullableIndexes.getOrDefault(table, new HashSet<>()));
+            metadataCache.putTable(database, table, columns.getOrDefault(table, new ArrayList<>()), primaryKey,
+                rowKey, entry.getValue());
+        }
+        return new SchemaMetadata(database, tables, totalRows, totalBytes);
+    }
+}
@@ -0,0 +1,181 @@
+package helloswing;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+/**
+ * Row sorter for a {@link PagedTableModel} that leaves sorting to the
+ * server: clicking a column header cycles it through ascending, descending
+ * and unsorted, and hands the new {@link GridQuery} to a callback that
+ * reopens the model. Only when every row is already in memory is the grid
+ * sorted locally. The header shows the sort order either way.
+ */
+public class ServerRowSorter extends RowSorter<PagedTableModel> {
+    private static final Comparator<Object> VALUE_ORDER = ServerRowSorter::compareValues;
+
+    private final PagedTableModel model;
+    private final Consumer<GridQuery> requery;
+    private List<SortKey> localKeys = Collections.emptyList();
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    public ServerRowSorter(PagedTableModel model, Consumer<GridQuery> requery) {
+        this.model = model;
+        this.requery = requery;
+    }
+
+    @Override
+    public PagedTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        List<? extends SortKey> current = getSortKeys();
+        SortOrder order = SortOrder.ASCENDING;
+        if (!current.isEmpty() && current.get(0).getColumn() == column) {
+            order = current.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.UNSORTED;
+        }
+        GridQuery view = model.getView();
+        if (order != SortOrder.UNSORTED && model.isFullyLoaded()) {
+            setSortKeys(Collections.singletonList(new SortKey(column, order)));
+        } else if (order == SortOrder.UNSORTED && !view.isSorted()) {
+            setSortKeys(null);
+        } else {
+            requery.accept(order == SortOrder.UNSORTED ? view.withSort(null, false)
+                : view.withSort(model.getColumnName(column), order == SortOrder.DESCENDING));
+        }
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> old = localKeys;
+        localKeys = keys == null || keys.isEmpty() ? Collections.emptyList()
+            : Collections.<SortKey>singletonList(keys.get(0));
+        if (!localKeys.equals(old)) {
+            fireSortOrderChanged();
+            int[] oldViewToModel = viewToModel;
+            sort();
+            fireRowSorterChanged(oldViewToModel);
+        }
+    }
+
+    /**
+     * Returns the local sort order, or else the order of the server query.
+     */
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        if (!localKeys.isEmpty()) {
+            return localKeys;
+        }
+        GridQuery view = model.getView();
+        if (view.isSorted()) {
+            for (int i = 0; i < model.getColumnCount(); i++) {
+                if (model.getColumnName(i).equalsIgnoreCase(view.getSortColumn())) {
+                    return Collections.singletonList(
+                        new SortKey(i, view.isDescending() ? SortOrder.DESCENDING : SortOrder.ASCENDING));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private void sort() {
+        if (localKeys.isEmpty()) {
+            viewToModel = null;
+            modelToView = null;
+            return;
+        }
+        SortKey key = localKeys.get(0);
+        int column = key.getColumn();
+        Comparator<Object> values = key.getSortOrder() == SortOrder.DESCENDING ? VALUE_ORDER.reversed() : VALUE_ORDER;
+        int rows = model.getRowCount();
+        Integer[] order = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        java.util.Arrays.sort(order, (a, b) -> values.compare(model.getValueAt(a, column), model.getValueAt(b, column)));
+        viewToModel = new int[rows];
+        modelToView = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            viewToModel[i] = order[i];
+            modelToView[order[i]] = i;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        return viewToModel == null ? index : viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        return modelToView == null ? index : modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    /**
+     * Adding or removing rows drops the local order; rows are only added
+     * while they are still being fetched, when local sorting does not
+     * apply. Edited cells keep their place until the next sort.
+     */
+    private void rowsChanged() {
+        if (!localKeys.isEmpty()) {
+            localKeys = Collections.emptyList();
+            sort();
+            fireSortOrderChanged();
+        }
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        rowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        rowsChanged();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        rowsChanged();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        rowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+    }
+}
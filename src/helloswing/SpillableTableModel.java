@@ -0,0 +1,102 @@
+package helloswing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Query result that keeps its first rows in a {@link ColumnarTableModel}
+ * and spills the rest to a memory-mapped temporary file once the in-memory
+ * threshold is reached, so results larger than the heap stay browsable.
+ * {@link #close()} deletes the file.
+ *
+ * The threshold defaults to {@value #DEFAULT_THRESHOLD_ROWS} rows and can be
+ * changed with {@code -Dhelloswing.spillThresholdRows=<rows>}; spill files
+ * go to {@code java.io.tmpdir}.
+ */
+public class SpillableTableModel extends AbstractTableModel implements AutoCloseable {
+    public static final String THRESHOLD_PROPERTY = "helloswing.spillThresholdRows";
+    public static final int DEFAULT_THRESHOLD_ROWS = 1_000_000;
+
+    private static final Logger LOGGER = Logger.getLogger(SpillableTableModel.class.getName());
+
+    private final ColumnarTableModel head;
+    private final ResultSpillFile tail;
+
+    private SpillableTableModel(ColumnarTableModel head, ResultSpillFile tail) {
+        this.head = head;
+        this.tail = tail;
+    }
+
+    public static SpillableTableModel from(ResultSet rs) throws SQLException, IOException {
+        return from(rs, Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_ROWS),
+            Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Reads every remaining row of {@code rs}, keeping at most
+     * {@code thresholdRows} in memory and writing the rest to a file in
+     * {@code directory}.
+     */
+    public static SpillableTableModel from(ResultSet rs, int thresholdRows, Path directory)
+            throws SQLException, IOException {
+        ColumnarTableModel head = ColumnarTableModel.from(rs, thresholdRows);
+        if (head.getRowCount() < thresholdRows) {
+            return new SpillableTableModel(head, null);
+        }
+        ResultSpillFile tail = ResultSpillFile.write(rs, head.getColumnCount(), directory);
+        if (tail.getRowCount() == 0) {
+            tail.close();
+            return new SpillableTableModel(head, null);
+        }
+        LOGGER.log(Level.INFO, "Spilled {0} rows ({1} bytes) past the first {2} to disk",
+            new Object[] { tail.getRowCount(), tail.getSizeBytes(), head.getRowCount() });
+        return new SpillableTableModel(head, tail);
+    }
+
+    public boolean isSpilled() {
+        return tail != null;
+    }
+
+    public int getSpilledRowCount() {
+        return tail == null ? 0 : tail.getRowCount();
+    }
+
+    @Override
+    public int getRowCount() {
+        return head.getRowCount() + getSpilledRowCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return head.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return head.getColumnName(column);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return head.getColumnClass(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int headRows = head.getRowCount();
+        return row < headRows ? head.getValueAt(row, column) : tail.get(row - headRows, column);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (tail != null) {
+            tail.close();
+        }
+    }
+}
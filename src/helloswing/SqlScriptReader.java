@@ -0,0 +1,165 @@
+package helloswing;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a SQL script into statements the way the mysql client does: on the
+ * current delimiter outside quotes and comments, with {@code DELIMITER} lines
+ * changing it. Line comments are dropped; block comments are kept because
+ * conditional comments and optimizer hints are executable. The script is
+ * read incrementally, so large dumps are never held in memory.
+ */
+public class SqlScriptReader implements Closeable {
+    public static final String DEFAULT_DELIMITER = ";";
+
+    public static final class ScriptStatement {
+        private final String sql;
+        private final int line;
+
+        ScriptStatement(String sql, int line) {
+            this.sql = sql;
+            this.line = line;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * One-based line of the script the statement starts on.
+         */
+        public int getLine() {
+            return line;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final StringBuilder statement = new StringBuilder();
+    private String delimiter = DEFAULT_DELIMITER;
+    private String line;
+    private int position;
+    private int lineNumber;
+    private int statementLine;
+    private char quote;
+    private boolean blockComment;
+
+    public SqlScriptReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Returns the next non-empty statement without its delimiter, or null
+     * at the end of the script.
+     */
+    public ScriptStatement next() throws IOException {
+        while (true) {
+            if (line == null || position > line.length()) {
+                line = reader.readLine();
+                position = 0;
+                if (line == null) {
+                    return take();
+                }
+                lineNumber++;
+                if (isBlank() && quote == 0 && !blockComment && isDelimiterCommand(line)) {
+                    delimiter = line.trim().substring("DELIMITER".length()).trim();
+                    position = line.length() + 1;
+                    continue;
+                }
+            }
+            ScriptStatement next = scanLine();
+            if (next != null) {
+                return next;
+            }
+        }
+    }
+
+    private ScriptStatement scanLine() {
+        while (position < line.length()) {
+            char ch = line.charAt(position);
+            if (blockComment) {
+                append(ch);
+                if (ch == '*' && peek() == '/') {
+                    append('/');
+                    position++;
+                    blockComment = false;
+                }
+            } else if (quote != 0) {
+                append(ch);
+                if (ch == '\\' && quote != '`' && position + 1 < line.length()) {
+                    append(line.charAt(++position));
+                } else if (ch == quote) {
+                    if (peek() == quote) {
+                        append(line.charAt(++position));
+                    } else {
+                        quote = 0;
+                    }
+                }
+            } else if (line.startsWith(delimiter, position)) {
+                position += delimiter.length();
+                ScriptStatement next = take();
+                if (next != null) {
+                    return next;
+                }
+                continue;
+            } else if (ch == '#' || (ch == '-' && peek() == '-' && (position + 2 >= line.length()
+                    || Character.isWhitespace(line.charAt(position + 2))))) {
+                position = line.length();
+                break;
+            } else if (ch == '/' && peek() == '*') {
+                append(ch);
+                append(line.charAt(++position));
+                blockComment = true;
+            } else {
+                if (ch == '\'' || ch == '"' || ch == '`') {
+                    quote = ch;
+                }
+                append(ch);
+            }
+            position++;
+        }
+        if (!isBlank()) {
+            statement.append('\n');
+        }
+        position = line.length() + 1;
+        return null;
+    }
+
+    private char peek() {
+        return position + 1 < line.length() ? line.charAt(position + 1) : 0;
+    }
+
+    private void append(char ch) {
+        if (isBlank()) {
+            if (Character.isWhitespace(ch)) {
+                return;
+            }
+            statementLine = lineNumber;
+        }
+        statement.append(ch);
+    }
+
+    private boolean isBlank() {
+        return statement.length() == 0;
+    }
+
+    private ScriptStatement take() {
+        String sql = statement.toString().trim();
+        statement.setLength(0);
+        return sql.isEmpty() ? null : new ScriptStatement(sql, statementLine);
+    }
+
+    private static boolean isDelimiterCommand(String line) {
+        String trimmed = line.trim();
+        return trimmed.regionMatches(true, 0, "DELIMITER", 0, "DELIMITER".length())
+            && trimmed.length() > "DELIMITER".length()
+            && Character.isWhitespace(trimmed.charAt("DELIMITER".length()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,341 @@
+package helloswing;
+
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point that runs a SQL script without the Swing UI, for
+ * cron jobs and CI. It uses no AWT classes, so it starts quickly and works
+ * on headless machines.
+ *
+ * Consecutive INSERT/UPDATE/DELETE/REPLACE statements are sent together with
+ * {@link Statement#executeBatch()}, which the driver turns into a single round
+ * trip; every other statement runs on its own. Each statement or batch is
+ * printed with its line, row count and time.
+ *
+ * The password is read from the {@code HELLOSWING_PASSWORD} environment
+ * variable, or prompted for on the console.
+ */
+public class SqlScriptRunner {
+    public static final String PASSWORD_ENV = "HELLOSWING_PASSWORD";
+
+    private static final String SCRIPT_CONNECTION_PARAMETERS = "continueBatchOnError=false";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int SQL_PREVIEW_LENGTH = 60;
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java -cp <classpath> helloswing.SqlScriptRunner [options] <script.sql | ->",
+        "  --host <host>          server host (default localhost)",
+        "  --port <port>          server port (default 3306)",
+        "  --user <user>          user name (required)",
+        "  --database <name>      default database",
+        "  --transaction          run the whole script in one transaction, rolled back on failure",
+        "  --force                keep going after a failed statement",
+        "  --batch-size <n>       statements per DML batch, 1 disables batching (default " + DEFAULT_BATCH_SIZE + ")",
+        "The password is read from " + PASSWORD_ENV + " or prompted for.");
+
+    private final Connection connection;
+    private final PrintStream out;
+    private final boolean transactional;
+    private final boolean force;
+    private final int batchSize;
+    private int executed;
+    private int failed;
+
+    public SqlScriptRunner(Connection connection, PrintStream out, boolean transactional, boolean force, int batchSize) {
+        this.connection = connection;
+        this.out = out;
+        this.transactional = transactional;
+        this.force = force;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        String host = null;
+        String port = null;
+        String user = null;
+        String database = null;
+        String script = null;
+        boolean transactional = false;
+        boolean force = false;
+        int batchSize = DEFAULT_BATCH_SIZE;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host":
+                        host = args[++i];
+                        break;
+                    case "--port":
+                        port = args[++i];
+                        break;
+                    case "--user":
+                        user = args[++i];
+                        break;
+                    case "--database":
+                        database = args[++i];
+                        break;
+                    case "--transaction":
+                        transactional = true;
+                        break;
+                    case "--force":
+                        force = true;
+                        break;
+                    case "--batch-size":
+                        batchSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--help":
+                        out.println(USAGE);
+                        return EXIT_OK;
+                    default:
+                        if (script != null || (args[i].startsWith("--") && args[i].length() > 2)) {
+                            throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                        }
+                        script = args[i];
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (script == null || user == null) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        char[] password = readPassword(user);
+        if (password == null) {
+            err.println("No password: set " + PASSWORD_ENV + " or run from a terminal");
+            return EXIT_USAGE;
+        }
+
+        ConnectSQL connectSQL = new ConnectSQL(host, port, user, password);
+        java.util.Arrays.fill(password, '0');
+        long start = System.nanoTime();
+        try (Reader reader = "-".equals(script) ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+                SqlScriptReader statements = new SqlScriptReader(reader)) {
+            connectSQL.getConnection().close();
+            return runScript(connectSQL.getPool(), database, statements, out, transactional, force, batchSize, start);
+        } catch (IOException | SQLException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILED;
+        } finally {
+            connectSQL.closeConnection();
+        }
+    }
+
+    /**
+     * The script runs on a dedicated connection that stops a batch at its
+     * first failure, so nothing after a failed statement is executed; with
+     * {@code --force} the statements after it are sent as a new batch.
+     */
+    private static int runScript(ConnectionPool pool, String database, SqlScriptReader statements, PrintStream out,
+            boolean transactional, boolean force, int batchSize, long start) throws IOException, SQLException {
+        try (Connection connection = pool.openDedicated(SCRIPT_CONNECTION_PARAMETERS)) {
+            if (database != null) {
+                connection.setCatalog(database);
+            }
+            SqlScriptRunner runner = new SqlScriptRunner(connection, out, transactional, force, batchSize);
+            boolean ok = runner.execute(statements);
+            out.printf("%d statements, %d failed, %.2f s%n", runner.executed, runner.failed,
+                (System.nanoTime() - start) / 1e9);
+            return ok ? EXIT_OK : EXIT_FAILED;
+        }
+    }
+
+    private static char[] readPassword(String user) {
+        String env = System.getenv(PASSWORD_ENV);
+        if (env != null) {
+            return env.toCharArray();
+        }
+        Console console = System.console();
+        return console == null ? null : console.readPassword("Password for %s: ", user);
+    }
+
+    /**
+     * Runs every statement of the script. Returns false if any failed; in
+     * transactional mode everything is then rolled back. Note that MySQL
+     * commits implicitly on DDL, so a transaction only covers the DML after
+     * the last DDL statement.
+     */
+    public boolean execute(SqlScriptReader script) throws IOException, SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(!transactional);
+        try (Statement stmt = connection.createStatement();
+                Statement batchStmt = connection.createStatement()) {
+            List<SqlScriptReader.ScriptStatement> batch = new ArrayList<>();
+            SqlScriptReader.ScriptStatement next;
+            boolean ok = true;
+            while (ok && (next = script.next()) != null) {
+                if (batchSize > 1 && isBatchable(next.getSql())) {
+                    batch.add(next);
+                    if (batch.size() >= batchSize) {
+                        ok = executeBatch(batchStmt, batch);
+                    }
+                } else {
+                    ok = executeBatch(batchStmt, batch) && executeSingle(stmt, next);
+                }
+            }
+            if (ok) {
+                executeBatch(batchStmt, batch);
+            }
+            if (transactional) {
+                if (failed == 0) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                    out.println("Rolled back");
+                }
+            }
+            return failed == 0;
+        } catch (SQLException | IOException | RuntimeException e) {
+            if (transactional) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean isBatchable(String sql) {
+        return QueryMetrics.classify(sql) == QueryMetrics.Operation.DML
+            && !sql.regionMatches(true, 0, "LOAD", 0, 4);
+    }
+
+    /**
+     * Runs a statement, reading every result it produces. Returns whether
+     * the script should go on.
+     */
+    private boolean executeSingle(Statement stmt, SqlScriptReader.ScriptStatement statement) {
+        executed++;
+        long start = System.nanoTime();
+        try {
+            boolean isResultSet = stmt.execute(statement.getSql());
+            long rows = 0;
+            boolean query = false;
+            while (true) {
+                if (isResultSet) {
+                    query = true;
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        while (rs.next()) {
+                            rows++;
+                        }
+                    }
+                } else {
+                    int count = stmt.getUpdateCount();
+                    if (count == -1) {
+                        break;
+                    }
+                    rows += count;
+                }
+                isResultSet = stmt.getMoreResults();
+            }
+            report(statement.getLine(), executed, 1, (query ? rows + " rows" : rows + " affected"), start,
+                statement.getSql());
+            return true;
+        } catch (SQLException e) {
+            return fail(statement, e);
+        }
+    }
+
+    /**
+     * Sends the pending DML statements as one batch and clears the list.
+     * Returns whether the script should go on.
+     */
+    private boolean executeBatch(Statement stmt, List<SqlScriptReader.ScriptStatement> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        if (batch.size() == 1) {
+            boolean ok = executeSingle(stmt, batch.get(0));
+            batch.clear();
+            return ok;
+        }
+        long start = System.nanoTime();
+        int first = executed + 1;
+        try {
+            for (SqlScriptReader.ScriptStatement statement : batch) {
+                stmt.addBatch(statement.getSql());
+            }
+            long rows = 0;
+            for (int count : stmt.executeBatch()) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+            executed += batch.size();
+            report(batch.get(0).getLine(), first, batch.size(), rows + " affected", start,
+                batch.get(0).getSql());
+            return true;
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            int failedIndex = counts.length;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    failedIndex = i;
+                    break;
+                }
+            }
+            failedIndex = Math.min(failedIndex, batch.size() - 1);
+            if (failedIndex > 0) {
+                long rows = 0;
+                for (int i = 0; i < failedIndex; i++) {
+                    rows += counts[i] == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, counts[i]);
+                }
+                executed += failedIndex;
+                report(batch.get(0).getLine(), first, failedIndex, rows + " affected", start, batch.get(0).getSql());
+            }
+            executed++;
+            if (!fail(batch.get(failedIndex), e)) {
+                return false;
+            }
+            // The driver stopped at the failure; with --force the rest is sent again.
+            List<SqlScriptReader.ScriptStatement> rest = new ArrayList<>(batch.subList(failedIndex + 1, batch.size()));
+            stmt.clearBatch();
+            return executeBatch(stmt, rest);
+        } finally {
+            stmt.clearBatch();
+            batch.clear();
+        }
+    }
+
+    private boolean fail(SqlScriptReader.ScriptStatement statement, SQLException e) {
+        failed++;
+        out.printf("%-12s line %-6d FAILED: %s [%s]  %s%n", "#" + executed, statement.getLine(), e.getMessage(),
+            e.getSQLState(), preview(statement.getSql()));
+        return force;
+    }
+
+    private void report(int line, int first, int count, String rows, long startNanos, String sql) {
+        double millis = (System.nanoTime() - startNanos) / 1e6;
+        String index = count == 1 ? "#" + first : "#" + first + "-" + (first + count - 1);
+        out.printf("%-12s line %-6d %-16s %10.2f ms  %s%s%n", index, line, rows, millis, preview(sql),
+            count == 1 ? "" : " (+" + (count - 1) + " batched)");
+    }
+
+    private static String preview(String sql) {
+        String flat = sql.replaceAll("\\s+", " ");
+        return flat.length() <= SQL_PREVIEW_LENGTH ? flat : flat.substring(0, SQL_PREVIEW_LENGTH - 3) + "...";
+    }
+}
@@ -1,26 +1,71 @@
 // StatusLogger.java
 package helloswing;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
 import javax.swing.text.StyledDocument;
 
+/**
+ * Appends status messages to a text pane. Messages may be logged from any
+ * thread: they are queued without locking and written to the document in
+ * one batch on the EDT, at most once per flush interval. The pane keeps only
+ * the newest {@code maxLines} lines, and if more than that are queued
+ * between flushes the oldest queued messages are dropped. Messages can also
+ * be copied to a {@link RollingFileSink}, which is written on its own thread.
+ */
 public class StatusLogger {
+    public static final int DEFAULT_MAX_LINES = 5000;
+    public static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(StatusLogger.class.getName());
+
     private final JTextPane statusPane;
+    private final int maxLines;
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Timer flushTimer;
+    private volatile RollingFileSink fileSink;
+    private volatile ExecutorService sinkExecutor;
 
     public StatusLogger(JTextPane statusPane) {
+        this(statusPane, DEFAULT_MAX_LINES, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public StatusLogger(JTextPane statusPane, int maxLines, int flushIntervalMillis) {
         if (statusPane == null) {
             throw new IllegalArgumentException("Status pane cannot be null");
         }
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("maxLines must be positive");
+        }
         this.statusPane = statusPane;
+        this.maxLines = maxLines;
+        this.flushTimer = new Timer(flushIntervalMillis, e -> flush());
+        this.flushTimer.setRepeats(false);
     }
 
     public void log(String message) {
-        try {
-            StyledDocument doc = statusPane.getStyledDocument();
-            doc.insertString(doc.getLength(), message + "\n", null);
-        } catch (BadLocationException e) {
-            e.printStackTrace();
+        pending.offer(message);
+        // Keep at most maxLines queued; older lines would be trimmed on insert anyway.
+        if (pendingCount.incrementAndGet() > maxLines && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(flushTimer::start);
         }
     }
 
@@ -31,4 +76,77 @@ public class StatusLogger {
     public void logSuccess(String message) {
         log("SUCCESS: " + message);
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes all queued messages now. Must be called on the EDT, e.g. before
+     * writing to the pane's document directly.
+     */
+    public void flush() {
+        flushTimer.stop();
+        flushScheduled.set(false);
+        StringBuilder batch = new StringBuilder();
+        String message;
+        while ((message = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.append(message).append('\n');
+        }
+        if (batch.length() == 0) {
+            return;
+        }
+        RollingFileSink sink = fileSink;
+        if (sink != null) {
+            String text = batch.toString();
+            sinkExecutor.execute(() -> sink.write(text));
+        }
+        try {
+            StyledDocument doc = statusPane.getStyledDocument();
+            doc.insertString(doc.getLength(), batch.toString(), null);
+            trim(doc);
+        } catch (BadLocationException e) {
+            LOGGER.log(Level.WARNING, "Failed to append status messages", e);
+        }
+    }
+
+    private void trim(StyledDocument doc) throws BadLocationException {
+        Element root = doc.getDefaultRootElement();
+        // The text ends with a newline, so the last element is an empty line.
+        int excess = root.getElementCount() - 1 - maxLines;
+        if (excess > 0) {
+            doc.remove(0, root.getElement(excess - 1).getEndOffset());
+        }
+    }
+
+    /**
+     * Empties the pane. Queued messages still reach the file sink. Must be
+     * called on the EDT.
+     */
+    public void clear() {
+        flush();
+        statusPane.setText("");
+    }
+
+    /**
+     * Also writes every message to {@code file}, rolling it over once it
+     * exceeds {@code maxBytes} and keeping {@code maxFiles} old files.
+     * Pass {@code null} to stop writing to a file.
+     */
+    public synchronized void setFileSink(Path file, long maxBytes, int maxFiles) throws IOException {
+        RollingFileSink previous = fileSink;
+        RollingFileSink next = file == null ? null : new RollingFileSink(file, maxBytes, maxFiles);
+        if (next != null && sinkExecutor == null) {
+            sinkExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "status-log-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        fileSink = next;
+        if (previous != null) {
+            sinkExecutor.execute(previous::close);
+        }
+    }
+
+    public int getMaxLines() {
+        return maxLines;
+    }
+}
@@ -0,0 +1,322 @@
+package helloswing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Copies a table with its structure. On the same server the target is
+ * created with CREATE TABLE ... LIKE and filled with INSERT ... SELECT, one
+ * primary key range at a time, so no row passes through the client and
+ * every chunk is a short transaction with bounded undo and locks. Chunks
+ * may run on several pooled connections at once. To another server the
+ * structure is taken from SHOW CREATE TABLE and the rows are streamed
+ * through batched inserts.
+ */
+public class TableCopier {
+    public static final int DEFAULT_CHUNK_ROWS = 10_000;
+    public static final int MAX_WORKERS = 4;
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    private final ConnectionPool pool;
+    private final TableOperations tableOps;
+
+    public TableCopier(ConnectionPool pool, TableOperations tableOps) {
+        this.pool = pool;
+        this.tableOps = tableOps;
+    }
+
+    /**
+     * Copies {@code table} to a new table on the same server. Tables without
+     * a primary key are copied with a single INSERT ... SELECT, one
+     * transaction with no timeout that only Stop can end.
+     *
+     * @param workers number of chunks copied at once, at most
+     *        {@value #MAX_WORKERS}
+     */
+    public BatchInsertResult copy(String database, String table, String targetDatabase, String targetTable,
+            int workers, int chunkRows, Consumer<String> progress) throws SQLException {
+        List<String> columns = copyableColumns(database, table);
+        List<String> key = tableOps.getPrimaryKeyColumns(database, table);
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + QueryBuilder.qualifiedTableName(targetDatabase, targetTable)
+                + " LIKE " + QueryBuilder.qualifiedTableName(database, table));
+        }
+        BatchInsertResult result = new BatchInsertResult();
+        try {
+            if (key.isEmpty()) {
+                progress.accept(table + " has no primary key, copying it in one statement");
+                String query = QueryBuilder.buildCopyRangeQuery(database, table, targetDatabase, targetTable, columns,
+                    null, false, false);
+                try (Connection connection = pool.borrow();
+                        Statement stmt = connection.createStatement()) {
+                    // The whole table in one statement: the DML timeout would cut it off.
+                    stmt.setQueryTimeout(0);
+                    result.chunkSucceeded(stmt.executeUpdate(query));
+                }
+            } else {
+                copyChunks(database, table, targetDatabase, targetTable, columns, key,
+                    Math.max(1, Math.min(workers, MAX_WORKERS)), Math.max(1, chunkRows), result, progress);
+            }
+        } finally {
+            result.finish();
+            pool.getResultCache().invalidateTable(targetDatabase, targetTable);
+        }
+        return result;
+    }
+
+    /**
+     * Generated columns are filled in by the server and cannot be inserted.
+     */
+    private List<String> copyableColumns(String database, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        for (ColumnInfo column : tableOps.describeTable(database, table)) {
+            String extra = column.getExtra();
+            if (extra == null || !extra.toUpperCase().contains("GENERATED")) {
+                columns.add(column.getName());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Walks the primary key index to find where each chunk ends and hands
+     * the ranges to the workers as they are found. Stops at the first
+     * failed chunk, since the copy would be incomplete anyway; the rows
+     * copied so far stay in the target.
+     */
+    private void copyChunks(String database, String table, String targetDatabase, String targetTable,
+            List<String> columns, List<String> key, int workers, int chunkRows, BatchInsertResult result,
+            Consumer<String> progress) throws SQLException {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "table-copy-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> pending = new ArrayList<>();
+        long[] lastReport = { System.currentTimeMillis() };
+        try {
+            Object[] lower = null;
+            while (true) {
+                Object[] upper = findChunkEnd(database, table, key, lower, chunkRows);
+                Object[] from = lower;
+                pending.add(executor.submit(TaskRunner.inCurrentTask(() -> {
+                    copyRange(database, table, targetDatabase, targetTable, columns, key, from, upper, result,
+                        lastReport, progress);
+                    return null;
+                })));
+                // Keep at most two chunks queued per worker ahead of the copy.
+                while (pending.size() > workers * 2) {
+                    await(pending.remove(0));
+                }
+                if (upper == null || TaskRunner.isCurrentCancelled()) {
+                    break;
+                }
+                lower = upper;
+            }
+            for (Future<?> future : pending) {
+                await(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the key of the last row of the chunk starting after
+     * {@code lower}, or null if the chunk reaches the end of the table.
+     */
+    private Object[] findChunkEnd(String database, String table, List<String> key, Object[] lower, int chunkRows)
+            throws SQLException {
+        String query = QueryBuilder.buildKeyBoundaryQuery(database, table, key, lower != null);
+        try (Connection connection = pool.borrow();
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            if (lower != null) {
+                for (Object value : lower) {
+                    pstmt.setObject(paramIndex++, value);
+                }
+            }
+            pstmt.setInt(paramIndex, chunkRows - 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Object[] upper = new Object[key.size()];
+                for (int i = 0; i < upper.length; i++) {
+                    upper[i] = rs.getObject(i + 1);
+                }
+                return upper;
+            }
+        }
+    }
+
+    private void copyRange(String database, String table, String targetDatabase, String targetTable,
+            List<String> columns, List<String> key, Object[] lower, Object[] upper, BatchInsertResult result,
+            long[] lastReport, Consumer<String> progress) throws SQLException {
+        String query = QueryBuilder.buildCopyRangeQuery(database, table, targetDatabase, targetTable, columns, key,
+            lower != null, upper != null);
+        try (Connection connection = pool.borrow();
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            for (Object[] bound : new Object[][] { lower, upper }) {
+                if (bound != null) {
+                    for (Object value : bound) {
+                        pstmt.setObject(paramIndex++, value);
+                    }
+                }
+            }
+            int rows = pstmt.executeUpdate();
+            synchronized (result) {
+                result.chunkSucceeded(rows);
+                reportProgress(result, lastReport, progress);
+            }
+        }
+    }
+
+    private static void await(Future<?> future) throws SQLException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while copying", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Copy failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void reportProgress(BatchInsertResult result, long[] lastReport, Consumer<String> progress) {
+        long now = System.currentTimeMillis();
+        if (now - lastReport[0] >= PROGRESS_INTERVAL_MILLIS) {
+            lastReport[0] = now;
+            progress.accept(String.format("Copied %,d rows in %d chunks (%.0f rows/s)",
+                result.getRowsInserted(), result.getChunkCount(), result.getRowsPerSecond()));
+        }
+    }
+
+    /**
+     * Copies {@code table} to a new table on the server behind
+     * {@code target}. Rows are streamed from this server and inserted in
+     * batches of {@code chunkRows}, each committed on its own. The first
+     * failed batch stops the copy.
+     */
+    public BatchInsertResult copyToServer(String database, String table, ConnectionPool target, String targetDatabase,
+            String targetTable, int chunkRows, Consumer<String> progress) throws SQLException {
+        String create;
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SHOW CREATE TABLE " + QueryBuilder.escapeTableName(table))) {
+            if (!rs.next()) {
+                throw new SQLException("Table " + database + "." + table + " not found");
+            }
+            create = rs.getString(2);
+        }
+        String prefix = "CREATE TABLE " + QueryBuilder.escapeTableName(table);
+        if (!create.startsWith(prefix)) {
+            throw new SQLException("Unexpected SHOW CREATE TABLE output for " + table);
+        }
+        try (Connection connection = target.borrow(targetDatabase);
+                Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + QueryBuilder.escapeTableName(targetTable) + create.substring(prefix.length()));
+        }
+        List<String> columns = copyableColumns(database, table);
+        String query = QueryBuilder.buildSelectQuery(table, String.join(",", columns), null);
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // The read lasts as long as the whole copy, so it must not time out.
+            stmt.setQueryTimeout(0);
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                long[] lastReport = { System.currentTimeMillis() };
+                DatabaseOperations targetOps = new DatabaseOperations(target, new MetadataCache());
+                return targetOps.insertRecords(targetDatabase, targetTable, rows(rs), Math.max(1, chunkRows),
+                    result -> {
+                        stopOnFailure(result);
+                        reportProgress(result, lastReport, progress);
+                    });
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Batched inserts go on past a failed chunk, which would leave a copy
+     * with rows missing, so the first failure ends the copy instead.
+     */
+    private static void stopOnFailure(BatchInsertResult result) {
+        if (result.getFailures().isEmpty()) {
+            return;
+        }
+        BatchInsertResult.ChunkFailure failure = result.getFailures().get(0);
+        Exception cause = failure.getCause();
+        throw new IllegalStateException(new SQLException("Copy stopped at " + failure + " ("
+            + result.getRowsInserted() + " rows copied before it)", cause instanceof SQLException
+            ? ((SQLException) cause).getSQLState() : null, cause));
+    }
+
+    private static Iterator<Map<String, Object>> rows(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        String[] names = new String[metaData.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+        }
+        return new Iterator<Map<String, Object>>() {
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = rs.next();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                Map<String, Object> row = new LinkedHashMap<>();
+                try {
+                    for (int i = 0; i < names.length; i++) {
+                        row.put(names[i], rs.getObject(i + 1));
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                return row;
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package helloswing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the result of a query to a CSV or JSON file. Rows are streamed from
+ * the server one at a time (fetch size {@link Integer#MIN_VALUE}) and written
+ * straight to the file, so memory use does not depend on the row count.
+ * Files ending in ".gz" are gzip-compressed.
+ */
+public class TableExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    private final ConnectionPool pool;
+
+    public TableExporter(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public static boolean isCompressed(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    public static Format formatFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".json") ? Format.JSON : Format.CSV;
+    }
+
+    public long export(String database, String query, Path file, Consumer<String> progress)
+            throws SQLException, IOException {
+        return export(database, query, Collections.emptyList(), file, progress);
+    }
+
+    /**
+     * Exports every row of {@code query}, with {@code params} bound to its
+     * placeholders, and returns the number of rows written. The rows go to
+     * a temporary file next to {@code file}, which replaces it only once the
+     * export has succeeded, so a failed export leaves an existing file
+     * untouched.
+     */
+    public long export(String database, String query, List<Object> params, Path file, Consumer<String> progress)
+            throws SQLException, IOException {
+        Format format = formatFor(file);
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString() + ".", ".part");
+        long rows;
+        try {
+            try (Connection connection = pool.borrow(database);
+                    PreparedStatement pstmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+                for (int i = 0; i < params.size(); i++) {
+                    pstmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery();
+                        Writer writer = openWriter(temp, isCompressed(file))) {
+                    rows = format == Format.JSON ? writeJson(rs, writer, progress) : writeCsv(rs, writer, progress);
+                }
+            }
+            moveIntoPlace(temp, file);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return rows;
+    }
+
+    private static void moveIntoPlace(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Writer openWriter(Path file, boolean compressed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel);
+        if (compressed) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private long writeCsv(ResultSet rs, Writer writer, Consumer<String> progress) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writeCsvField(writer, metaData.getColumnLabel(i));
+        }
+        writer.write("\r\n");
+        ProgressReporter reporter = new ProgressReporter(progress);
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String value = rs.getString(i);
+                if (value != null) {
+                    writeCsvField(writer, value);
+                }
+            }
+            writer.write("\r\n");
+            reporter.rowWritten(++rows);
+        }
+        return rows;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean needsQuotes = value.isEmpty();
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char ch = value.charAt(i);
+            needsQuotes = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                writer.write('"');
+            }
+            writer.write(ch);
+        }
+        writer.write('"');
+    }
+
+    private long writeJson(ResultSet rs, Writer writer, Consumer<String> progress) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        boolean[] unquoted = new boolean[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            names[i - 1] = metaData.getColumnLabel(i);
+            unquoted[i - 1] = isJsonLiteral(metaData.getColumnType(i));
+        }
+        writer.write('[');
+        ProgressReporter reporter = new ProgressReporter(progress);
+        long rows = 0;
+        while (rs.next()) {
+            writer.write(rows == 0 ? "\n{" : ",\n{");
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writeJsonString(writer, names[i - 1]);
+                writer.write(':');
+                String value = rs.getString(i);
+                if (value == null) {
+                    writer.write("null");
+                } else if (unquoted[i - 1]) {
+                    writer.write(value);
+                } else {
+                    writeJsonString(writer, value);
+                }
+            }
+            writer.write('}');
+            reporter.rowWritten(++rows);
+        }
+        writer.write("\n]\n");
+        return rows;
+    }
+
+    private static boolean isJsonLiteral(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        writer.write(ch);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static final class ProgressReporter {
+        private final Consumer<String> progress;
+        private final long startMillis = System.currentTimeMillis();
+        private long lastReport = startMillis;
+
+        ProgressReporter(Consumer<String> progress) {
+            this.progress = progress;
+        }
+
+        void rowWritten(long rows) {
+            if ((rows & 0x3FF) != 0) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= PROGRESS_INTERVAL_MILLIS) {
+                lastReport = now;
+                progress.accept(String.format("Exported %d rows (%.0f rows/s)",
+                    rows, rows * 1000.0 / Math.max(1, now - startMillis)));
+            }
+        }
+    }
+}
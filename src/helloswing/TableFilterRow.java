@@ -0,0 +1,134 @@
+package helloswing;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
+import javax.swing.table.TableColumnModel;
+
+/**
+ * Row of filter fields shown under the header of a table with a
+ * {@link PagedTableModel}, one field per column and aligned with it.
+ * Pressing Enter in any field passes the model's {@link GridQuery} with the
+ * filters of all fields to a callback, which runs it on the server. See
+ * {@link QueryBuilder#buildFilterCondition} for what a filter may contain.
+ */
+public class TableFilterRow extends JPanel {
+    private static final String TOOLTIP = "<html>Filter, Enter to apply: text (prefix), a*b (wildcard),<br>"
+        + "=, !=, &lt;, &lt;=, &gt;, &gt;= value, NULL or !NULL</html>";
+
+    private final JTable table;
+    private final Consumer<GridQuery> requery;
+    private final List<JTextField> fields = new ArrayList<>();
+    private PagedTableModel model;
+    private boolean installed;
+
+    public TableFilterRow(JTable table, Consumer<GridQuery> requery) {
+        super(null);
+        this.table = table;
+        this.requery = requery;
+        table.getColumnModel().addColumnModelListener(new TableColumnModelListener() {
+            @Override
+            public void columnAdded(TableColumnModelEvent e) {
+                revalidate();
+            }
+
+            @Override
+            public void columnRemoved(TableColumnModelEvent e) {
+                revalidate();
+            }
+
+            @Override
+            public void columnMoved(TableColumnModelEvent e) {
+                revalidate();
+            }
+
+            @Override
+            public void columnMarginChanged(ChangeEvent e) {
+                revalidate();
+            }
+
+            @Override
+            public void columnSelectionChanged(ListSelectionEvent e) {
+            }
+        });
+        setVisible(false);
+    }
+
+    /**
+     * Puts the row under the table header. Call once the table is showing
+     * in {@code scrollPane}, since the table resets the header when it is
+     * added to it.
+     */
+    private void install(JScrollPane scrollPane) {
+        JPanel header = new JPanel(new BorderLayout());
+        header.add(table.getTableHeader(), BorderLayout.NORTH);
+        header.add(this, BorderLayout.CENTER);
+        scrollPane.setColumnHeaderView(header);
+        installed = true;
+    }
+
+    /**
+     * Shows one field per column of {@code model}, filled from its view, or
+     * hides the row for null.
+     */
+    public void setModel(PagedTableModel model, JScrollPane scrollPane) {
+        if (!installed) {
+            install(scrollPane);
+        }
+        this.model = model;
+        removeAll();
+        fields.clear();
+        if (model != null) {
+            for (int i = 0; i < model.getColumnCount(); i++) {
+                JTextField field = new JTextField(model.getView().getFilter(model.getColumnName(i)));
+                field.setToolTipText(TOOLTIP);
+                field.addActionListener(e -> apply());
+                fields.add(field);
+                add(field);
+            }
+        }
+        setVisible(model != null);
+        revalidate();
+        repaint();
+    }
+
+    private void apply() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            filters.put(model.getColumnName(i), fields.get(i).getText());
+        }
+        requery.accept(model.getView().withFilters(filters));
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int height = fields.isEmpty() ? 0 : fields.get(0).getPreferredSize().height;
+        return new Dimension(table.getColumnModel().getTotalColumnWidth(), height);
+    }
+
+    @Override
+    public void doLayout() {
+        TableColumnModel columns = table.getColumnModel();
+        int x = 0;
+        for (int i = 0; i < columns.getColumnCount(); i++) {
+            int width = columns.getColumn(i).getWidth();
+            int modelIndex = columns.getColumn(i).getModelIndex();
+            if (modelIndex < fields.size()) {
+                fields.get(modelIndex).setBounds(x, 0, width, getHeight());
+            }
+            x += width;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package helloswing;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports a CSV/TSV file with a header line into an existing table. Uses
+ * LOAD DATA LOCAL INFILE when the server allows it and falls back to
+ * batched prepared inserts otherwise; both paths stream the file.
+ */
+public class TableImporter {
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    private static final int MAX_WARNINGS = 20;
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148;
+    private static final int ER_CLIENT_LOCAL_FILES_DISABLED = 3948;
+
+    private final ConnectionPool pool;
+    private final DatabaseOperations dbOps;
+    private final TableOperations tableOps;
+
+    public TableImporter(ConnectionPool pool, DatabaseOperations dbOps, TableOperations tableOps) {
+        this.pool = pool;
+        this.dbOps = dbOps;
+        this.tableOps = tableOps;
+    }
+
+    public BatchInsertResult importFile(Path file, String database, String table, Consumer<String> progress)
+            throws SQLException, IOException {
+        List<ColumnInfo> columns = tableOps.describeTable(database, table);
+        char delimiter = DelimitedFileReader.delimiterFor(file);
+        try (DelimitedFileReader reader = new DelimitedFileReader(file, delimiter)) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IOException("File is empty: " + file.getFileName());
+            }
+            List<ColumnInfo> mapping = mapColumns(header, columns, progress);
+            if (isLocalInfileEnabled()) {
+                try {
+                    return loadDataLocal(file, database, table, mapping, delimiter, reader.usesCrLf(), progress);
+                } catch (SQLException e) {
+                    if (TaskRunner.isCurrentCancelled() || !isLocalInfileRefused(e)) {
+                        throw e;
+                    }
+                    progress.accept("LOAD DATA LOCAL INFILE refused (" + e.getMessage() + "), using batched inserts");
+                }
+            } else {
+                progress.accept("Server has local_infile disabled, using batched inserts");
+            }
+            return batchInsert(reader, database, table, mapping, progress);
+        }
+    }
+
+    private List<ColumnInfo> mapColumns(List<String> header, List<ColumnInfo> columns, Consumer<String> progress)
+            throws IOException {
+        List<ColumnInfo> mapping = new ArrayList<>(header.size());
+        boolean matched = false;
+        for (String name : header) {
+            ColumnInfo target = null;
+            for (ColumnInfo column : columns) {
+                if (column.getName().equalsIgnoreCase(name.trim())) {
+                    target = column;
+                    break;
+                }
+            }
+            if (target == null) {
+                progress.accept("Skipping file column not in table: " + name);
+            } else {
+                matched = true;
+            }
+            mapping.add(target);
+        }
+        if (!matched) {
+            throw new IOException("The header line does not match any column of the table");
+        }
+        return mapping;
+    }
+
+    /**
+     * Whether the server or the driver refused LOCAL loading itself, as
+     * opposed to the load failing on the data or being stopped; only then is
+     * retrying with batched inserts any use.
+     */
+    private static boolean isLocalInfileRefused(SQLException e) {
+        if (e.getErrorCode() == ER_NOT_ALLOWED_COMMAND || e.getErrorCode() == ER_CLIENT_LOCAL_FILES_DISABLED) {
+            return true;
+        }
+        String message = e.getMessage();
+        return message != null && message.contains("Loading local data is disabled");
+    }
+
+    private boolean isLocalInfileEnabled() throws SQLException {
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT @@GLOBAL.local_infile")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * With LOCAL, the server downgrades duplicate keys and conversion errors
+     * to warnings, skipping or truncating the rows. The file is fed to the
+     * driver through a stream that counts its records and reports progress,
+     * so skipped rows can be told from loaded ones; the warnings are read
+     * back into the result.
+     */
+    private BatchInsertResult loadDataLocal(Path file, String database, String table, List<ColumnInfo> mapping,
+            char delimiter, boolean crlf, Consumer<String> progress) throws SQLException, IOException {
+        List<String> targets = new ArrayList<>(mapping.size());
+        Set<String> nullable = new HashSet<>();
+        for (ColumnInfo column : mapping) {
+            targets.add(column == null ? null : column.getName());
+            if (column != null && column.isNullable()) {
+                nullable.add(column.getName());
+            }
+        }
+        Path absolute = file.toAbsolutePath();
+        String query = QueryBuilder.buildLoadDataQuery(absolute.toString(), table, delimiter, crlf, targets, nullable);
+        // Local infile is only enabled on this connection, and only for the file's own directory.
+        String parameters = "allowLoadLocalInfileInPath="
+            + URLEncoder.encode(absolute.getParent().toString(), StandardCharsets.UTF_8);
+        progress.accept("Loading " + file.getFileName() + " with LOAD DATA LOCAL INFILE");
+        BatchInsertResult result = new BatchInsertResult();
+        try (Connection connection = pool.openDedicated(parameters);
+                Statement stmt = connection.createStatement();
+                RecordCountingStream in = new RecordCountingStream(Files.newInputStream(absolute),
+                    Files.size(absolute), progress)) {
+            connection.setCatalog(database);
+            TaskRunner.track(stmt);
+            boolean counted = setLocalInfileStream(stmt, in);
+            long loaded = stmt.executeUpdate(query);
+            result.chunkSucceeded((int) loaded);
+            if (counted) {
+                result.rowsSkipped(Math.max(0, in.getRecordCount() - 1 - loaded));
+            }
+            readWarnings(stmt, result);
+        } finally {
+            result.finish();
+            pool.getResultCache().invalidateTable(database, table);
+        }
+        return result;
+    }
+
+    /**
+     * Hands {@code in} to the driver in place of the file named in the
+     * statement. This is a Connector/J extension, so the driver reads the
+     * file itself if the statement does not offer it.
+     */
+    private static boolean setLocalInfileStream(Statement stmt, InputStream in) {
+        try {
+            stmt.getClass().getMethod("setLocalInfileInputStream", InputStream.class).invoke(stmt, in);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void readWarnings(Statement stmt, BatchInsertResult result) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SHOW COUNT(*) WARNINGS")) {
+            if (!rs.next() || rs.getLong(1) == 0) {
+                return;
+            }
+            result.warningsReported(rs.getLong(1));
+        }
+        try (ResultSet rs = stmt.executeQuery("SHOW WARNINGS LIMIT " + MAX_WARNINGS)) {
+            while (rs.next()) {
+                result.addWarning(rs.getString("Message"));
+            }
+        }
+    }
+
+    /**
+     * Inserts the records in batches. Records with the wrong number of
+     * fields, such as blank lines, are left out and reported in the result.
+     * A file that cannot be read further ends the import with an error
+     * saying how many rows were already committed.
+     */
+    private BatchInsertResult batchInsert(DelimitedFileReader reader, String database, String table,
+            List<ColumnInfo> mapping, Consumer<String> progress) throws SQLException, IOException {
+        List<Long> rejectedRecords = new ArrayList<>();
+        List<String> rejectedReasons = new ArrayList<>();
+        Iterator<Map<String, Object>> rows = new Iterator<Map<String, Object>>() {
+            private List<String> next = read();
+
+            private List<String> read() {
+                try {
+                    List<String> record = reader.readRecord();
+                    while (record != null && record.size() != mapping.size()) {
+                        rejectedRecords.add(reader.getRecordNumber());
+                        rejectedReasons.add(record.size() == 1 && record.get(0).isEmpty()
+                            ? "Record " + reader.getRecordNumber() + " is blank"
+                            : "Record " + reader.getRecordNumber() + " has " + record.size() + " fields, expected "
+                                + mapping.size());
+                        record = reader.readRecord();
+                    }
+                    return record;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> record = next;
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < mapping.size(); i++) {
+                    ColumnInfo column = mapping.get(i);
+                    if (column != null) {
+                        String value = record.get(i);
+                        row.put(column.getName(), value.isEmpty() && column.isNullable() ? null : value);
+                    }
+                }
+                next = read();
+                return row;
+            }
+        };
+        long[] lastReport = { System.currentTimeMillis() };
+        long[] committed = { 0 };
+        BatchInsertResult result;
+        try {
+            result = dbOps.insertRecords(database, table, rows, DatabaseOperations.DEFAULT_BATCH_SIZE, progressed -> {
+                committed[0] = progressed.getRowsInserted();
+                long now = System.currentTimeMillis();
+                if (now - lastReport[0] >= PROGRESS_INTERVAL_MILLIS) {
+                    lastReport[0] = now;
+                    progress.accept(String.format("Imported %d rows (%.0f rows/s)",
+                        progressed.getRowsInserted(), progressed.getRowsPerSecond()));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new IOException(e.getCause().getMessage() + "; " + committed[0]
+                + " rows before it were imported and committed", e.getCause());
+        }
+        for (int i = 0; i < rejectedRecords.size(); i++) {
+            result.rowRejected(rejectedRecords.get(i), new IOException(rejectedReasons.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Passes a file through while counting its bytes and its records: line
+     * breaks outside double quotes, plus a last line without one. UTF-8
+     * never uses these bytes inside a multi-byte character.
+     */
+    private static final class RecordCountingStream extends FilterInputStream {
+        private final long size;
+        private final Consumer<String> progress;
+        private final long startMillis = System.currentTimeMillis();
+        private long lastReport = startMillis;
+        private long bytes;
+        private long records;
+        private boolean quoted;
+        private int last = -1;
+
+        RecordCountingStream(InputStream in, long size, Consumer<String> progress) {
+            super(in);
+            this.size = size;
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(b);
+                reportProgress();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            for (int i = 0; i < n; i++) {
+                count(buffer[offset + i] & 0xFF);
+            }
+            if (n > 0) {
+                reportProgress();
+            }
+            return n;
+        }
+
+        private void count(int b) {
+            bytes++;
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                records++;
+            }
+            last = b;
+        }
+
+        private void reportProgress() {
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= PROGRESS_INTERVAL_MILLIS) {
+                lastReport = now;
+                double seconds = Math.max(1, now - startMillis) / 1000.0;
+                progress.accept(String.format("Sent %d%% of the file, ~%,d records (%.1f MB/s, %.0f records/s)",
+                    size == 0 ? 100 : bytes * 100 / size, records, bytes / 1e6 / seconds, records / seconds));
+            }
+        }
+
+        long getRecordCount() {
+            return records + (last >= 0 && last != '\n' ? 1 : 0);
+        }
+    }
+}
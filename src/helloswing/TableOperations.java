@@ -1,18 +1,25 @@
 package helloswing;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.swing.JOptionPane;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableModel;
 import java.awt.Component;
 
 public class TableOperations {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final MetadataCache metadataCache;
 
-    public TableOperations(Connection connection) {
-        this.connection = connection;
+    public TableOperations(ConnectionPool pool) {
+        this(pool, new MetadataCache());
+    }
+
+    public TableOperations(ConnectionPool pool, MetadataCache metadataCache) {
+        this.pool = pool;
+        this.metadataCache = metadataCache;
     }
 
     private void validateConnection(Connection connection) throws SQLException {
@@ -27,6 +34,16 @@ public class TableOperations {
         }
     }
 
+    /**
+     * Drops cached results of {@code table} in the connection's current
+     * database after a write made through a caller-supplied connection.
+     */
+    private void invalidateResults(Connection connection, String table) throws SQLException {
+        if (pool != null) {
+            pool.getResultCache().invalidateTable(connection.getCatalog(), table);
+        }
+    }
+
     public ResultSet executeQuery(Connection connection, String query) throws SQLException {
         validateConnection(connection);
         validateInput(query, "Query");        
@@ -48,34 +65,184 @@ public class TableOperations {
                 pstmt.setObject(paramIndex++, value);
             }
             pstmt.executeUpdate();
+        } finally {
+            invalidateResults(connection, table);
+        }
+    }
+
+    public void insertRecord(String database, String table, Map<String, Object> data) throws SQLException {
+        try (Connection connection = pool.borrow(database)) {
+            insertRecord(connection, table, data);
+        }
+    }
+
+    public List<ColumnInfo> describeTable(String database, String table) throws SQLException {
+        validateInput(database, "Database");
+        validateInput(table, "Table");
+        return metadataCache.getColumns(database, table, () -> loadColumns(database, table));
+    }
+
+    private List<ColumnInfo> loadColumns(String database, String table) throws SQLException {
+        List<ColumnInfo> columns = new ArrayList<>();
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("DESCRIBE " + database + "." + table)) {
+            while (rs.next()) {
+                columns.add(new ColumnInfo(rs.getString("Field"), rs.getString("Type"),
+                    "YES".equalsIgnoreCase(rs.getString("Null")), rs.getString("Key"),
+                    rs.getString("Default"), rs.getString("Extra")));
+            }
+        }
+        return columns;
+    }
+
+    public List<String> getPrimaryKeyColumns(String database, String table) throws SQLException {
+        validateInput(database, "Database");
+        validateInput(table, "Table");
+        return metadataCache.getPrimaryKey(database, table, () -> loadPrimaryKey(database, table));
+    }
+
+    private List<String> loadPrimaryKey(String database, String table) throws SQLException {
+        Map<Short, String> keys = new java.util.TreeMap<>();
+        try (Connection connection = pool.borrow();
+                ResultSet rs = connection.getMetaData().getPrimaryKeys(database, null, table)) {
+            while (rs.next()) {
+                keys.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(keys.values());
+    }
+
+    /**
+     * Returns the columns that identify a single row: the primary key, or
+     * else the first unique index whose columns are all NOT NULL. Empty if
+     * the table has neither.
+     */
+    public List<String> getRowKeyColumns(String database, String table) throws SQLException {
+        validateInput(database, "Database");
+        validateInput(table, "Table");
+        return metadataCache.getRowKey(database, table, () -> loadRowKey(database, table));
+    }
+
+    private List<String> loadRowKey(String database, String table) throws SQLException {
+        Map<String, List<String>> indexes = new java.util.LinkedHashMap<>();
+        java.util.Set<String> nullable = new java.util.HashSet<>();
+        String query = "SELECT INDEX_NAME, COLUMN_NAME, NULLABLE FROM information_schema.STATISTICS"
+            + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND NON_UNIQUE = 0"
+            + " ORDER BY INDEX_NAME = 'PRIMARY' DESC, INDEX_NAME, SEQ_IN_INDEX";
+        try (Connection connection = pool.borrow();
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, database);
+            pstmt.setString(2, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    indexes.computeIfAbsent(index, k -> new ArrayList<>()).add(rs.getString("COLUMN_NAME"));
+                    if ("YES".equalsIgnoreCase(rs.getString("NULLABLE"))) {
+                        nullable.add(index);
+                    }
+                }
+            }
+        }
+        return chooseRowKey(indexes, nullable);
+    }
+
+    /**
+     * Picks the first of the unique {@code indexes} (primary key first) that
+     * is not in {@code nullable}, or an empty list.
+     */
+    static List<String> chooseRowKey(Map<String, List<String>> indexes, java.util.Set<String> nullable) {
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            if (!nullable.contains(index.getKey())) {
+                return index.getValue();
+            }
         }
+        return new ArrayList<>();
     }
 
-    public void insertRecordWithPrompt(Connection connection, String database, String table, Component parent) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery("DESCRIBE " + database + "." + table);
+    /**
+     * Returns the server's row estimate from information_schema.TABLES. It
+     * is cheap but may be far off for InnoDB; -1 if unknown.
+     */
+    public long estimateRowCount(String database, String table) throws SQLException {
+        validateInput(database, "Database");
+        validateInput(table, "Table");
+        return metadataCache.getRowEstimate(database, table, () -> {
+            try (Connection connection = pool.borrow();
+                    PreparedStatement pstmt = connection.prepareStatement(
+                        "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?")) {
+                pstmt.setString(1, database);
+                pstmt.setString(2, table);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        long rows = rs.getLong(1);
+                        return rs.wasNull() ? -1L : rows;
+                    }
+                    return -1L;
+                }
+            }
+        });
+    }
+
+    public long countRows(String database, String table) throws SQLException {
+        validateInput(table, "Table");
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + QueryBuilder.escapeTableName(table))) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Counts the rows matching the filters of {@code view}.
+     */
+    public long countRows(String database, String table, GridQuery view) throws SQLException {
+        validateInput(table, "Table");
+        List<Object> params = new ArrayList<>();
+        String query = QueryBuilder.buildCountQuery(table, QueryBuilder.buildFilterCondition(view.getFilters(), params));
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    public Map<String, Object> promptInsertValues(List<ColumnInfo> columns, Component parent) {
         Map<String, Object> data = new HashMap<>();
-        while (rs.next()) {
-            String columnName = rs.getString("Field");
-            String columnType = rs.getString("Type");
+        for (ColumnInfo column : columns) {
             String newValue = JOptionPane.showInputDialog(parent,
-                "Insert value for " + columnName + " (" + columnType + ")");
+                "Insert value for " + column.getName() + " (" + column.getType() + ")");
             if (newValue != null && !newValue.trim().isEmpty()) {
-                data.put(columnName, newValue);
+                data.put(column.getName(), newValue);
             }
         }
-        if (!data.isEmpty()) {
-            String query = QueryBuilder.buildInsertQuery(table, data);
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                int paramIndex = 1;
-                for (Object value : data.values()) {
-                    pstmt.setObject(paramIndex++, value);
+        return data;
+    }
+
+    /**
+     * Returns the values of the table's columns shown in the selected grid
+     * row, keyed by column name. Columns not in the grid are left out and
+     * values keep their JDBC types, so they can be bound back unchanged.
+     */
+    public Map<String, Object> getRowValues(List<ColumnInfo> columns, JTable tblDB, int selectedRow) {
+        Map<String, Object> values = new java.util.LinkedHashMap<>();
+        javax.swing.table.TableModel model = tblDB.getModel();
+        int modelRow = tblDB.convertRowIndexToModel(selectedRow);
+        for (ColumnInfo column : columns) {
+            for (int i = 0; i < model.getColumnCount(); i++) {
+                if (model.getColumnName(i).equalsIgnoreCase(column.getName())) {
+                    values.put(column.getName(), model.getValueAt(modelRow, i));
+                    break;
                 }
-                pstmt.executeUpdate();
             }
         }
+        return values;
     }
-    
+
     public void deleteRecord(Connection connection, String table, String whereClause) throws SQLException {
         validateConnection(connection);
         validateInput(table, "Table");
@@ -83,83 +250,215 @@ public class TableOperations {
         String query = QueryBuilder.buildDeleteQuery(table, whereClause);        
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.executeUpdate();
+        } finally {
+            invalidateResults(connection, table);
         }
     }
 
-    public void deleteRecordWithPrompt(String database, String table, JTable tblDB, int selectedRow, Component parent) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery("DESCRIBE " + database + "." + table);
-        StringBuilder whereClause = new StringBuilder();
-        boolean firstWhere = true;
-        while (rs.next()) {
-            String columnName = rs.getString("Field");
-            String columnType = rs.getString("Type");
-            int columnIndex = tblDB.getColumnModel().getColumnIndex(columnName);
-            String value = tblDB.getValueAt(selectedRow, columnIndex).toString();
-            if (!firstWhere) {
-                whereClause.append(" AND ");
+    public void deleteRecord(String database, String table, String whereClause) throws SQLException {
+        try (Connection connection = pool.borrow(database)) {
+            deleteRecord(connection, table, whereClause);
+        }
+    }
+
+    /**
+     * Narrows {@code rowValues} to the row key when every key column is
+     * present. Returns null if there is no usable key, in which case the row
+     * has to be matched on all values with LIMIT 1.
+     */
+    private Map<String, Object> keyValues(String database, String table, Map<String, Object> rowValues) throws SQLException {
+        List<String> key = getRowKeyColumns(database, table);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> values = new java.util.LinkedHashMap<>();
+        for (String column : key) {
+            String match = rowValues.keySet().stream().filter(column::equalsIgnoreCase).findFirst().orElse(null);
+            if (match == null || rowValues.get(match) == null) {
+                return null;
             }
-            whereClause.append("`").append(columnName).append("`=").append("'");
-            if (columnType.contains("char") || columnType.contains("text") || columnType.contains("date")) {
-                whereClause.append(value).append("'");
-            } else {
-                whereClause.append(value).append("'");
+            values.put(column, rowValues.get(match));
+        }
+        return values;
+    }
+
+    /**
+     * Updates the row shown with {@code rowValues}, located by its key when
+     * the table has one. Returns the number of rows changed.
+     */
+    public int updateRow(String database, String table, Map<String, Object> data, Map<String, Object> rowValues) throws SQLException {
+        try (Connection connection = pool.borrow(database)) {
+            return updateRow(connection, database, table, data, rowValues);
+        }
+    }
+
+    public int updateRow(Connection connection, String database, String table, Map<String, Object> data,
+            Map<String, Object> rowValues) throws SQLException {
+        validateConnection(connection);
+        validateInput(table, "Table");
+        validateInput(data, "Data");
+        validateInput(rowValues, "Row");
+        Map<String, Object> key = keyValues(database, table, rowValues);
+        Map<String, Object> conditions = key != null ? key : rowValues;
+        String query = QueryBuilder.buildRowUpdateQuery(table, data.keySet(), conditions.keySet(), key == null);
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            for (Object value : data.values()) {
+                pstmt.setObject(paramIndex++, value);
+            }
+            for (Object value : conditions.values()) {
+                pstmt.setObject(paramIndex++, value);
             }
-            firstWhere = false;
+            return pstmt.executeUpdate();
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
         }
-        int confirm = JOptionPane.showConfirmDialog(parent, "Are you sure you want to delete this record?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
-        if (confirm == JOptionPane.YES_OPTION) {
-            String query = "DELETE FROM " + table + " WHERE " + whereClause;
-            stmt.executeUpdate(query);
+    }
+
+    /**
+     * Deletes the row shown with {@code rowValues}, located by its key when
+     * the table has one. Returns the number of rows deleted.
+     */
+    public int deleteRow(String database, String table, Map<String, Object> rowValues) throws SQLException {
+        try (Connection connection = pool.borrow(database)) {
+            return deleteRow(connection, database, table, rowValues);
         }
     }
 
-    public void updateRecordWithPrompt(Connection connection, String database, String table, JTable tblDB, int selectedRow, Component parent) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery("DESCRIBE " + database + "." + table);
+    public int deleteRow(Connection connection, String database, String table, Map<String, Object> rowValues)
+            throws SQLException {
+        validateConnection(connection);
+        validateInput(table, "Table");
+        validateInput(rowValues, "Row");
+        Map<String, Object> key = keyValues(database, table, rowValues);
+        Map<String, Object> conditions = key != null ? key : rowValues;
+        String query = QueryBuilder.buildRowDeleteQuery(table, conditions.keySet(), key == null);
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            for (Object value : conditions.values()) {
+                pstmt.setObject(paramIndex++, value);
+            }
+            return pstmt.executeUpdate();
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
+        }
+    }
+
+    /**
+     * Writes grid edits with one UPDATE per row located by its key, sent as
+     * one JDBC batch per set of changed columns. With autocommit on, all
+     * batches are committed together; otherwise they join the connection's
+     * transaction. An UPDATE only matches while the changed columns still
+     * hold the values read, so rows changed or deleted by someone else are
+     * left alone and returned as conflicts.
+     */
+    public List<PagedTableModel.RowEdit> saveRowEdits(Connection connection, String table,
+            List<PagedTableModel.RowEdit> edits) throws SQLException {
+        validateConnection(connection);
+        validateInput(table, "Table");
+        Map<List<String>, List<PagedTableModel.RowEdit>> groups = new java.util.LinkedHashMap<>();
+        for (PagedTableModel.RowEdit edit : edits) {
+            groups.computeIfAbsent(new ArrayList<>(edit.getNewValues().keySet()), columns -> new ArrayList<>()).add(edit);
+        }
+        List<PagedTableModel.RowEdit> conflicts = new ArrayList<>();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Map.Entry<List<String>, List<PagedTableModel.RowEdit>> group : groups.entrySet()) {
+                List<PagedTableModel.RowEdit> rows = group.getValue();
+                String query = QueryBuilder.buildCheckedRowUpdateQuery(table, group.getKey(), rows.get(0).getKey().keySet());
+                try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                    for (PagedTableModel.RowEdit edit : rows) {
+                        int paramIndex = 1;
+                        for (Object value : edit.getNewValues().values()) {
+                            pstmt.setObject(paramIndex++, value);
+                        }
+                        for (Object value : edit.getKey().values()) {
+                            pstmt.setObject(paramIndex++, value);
+                        }
+                        for (Object value : edit.getOldValues().values()) {
+                            pstmt.setObject(paramIndex++, value);
+                        }
+                        pstmt.addBatch();
+                    }
+                    int[] counts = pstmt.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            conflicts.add(rows.get(i));
+                        }
+                    }
+                }
+            }
+            if (autoCommit) {
+                connection.commit();
+            }
+            return conflicts;
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommit) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            invalidateResults(connection, table);
+        }
+    }
+
+    public Map<String, Object> promptUpdateValues(List<ColumnInfo> columns, Map<String, Object> rowValues, Component parent) {
         Map<String, Object> data = new HashMap<>();
-        Map<String, Object> conditions = new HashMap<>();
-        while (rs.next()) {
-            String columnName = rs.getString("Field");
-            String columnType = rs.getString("Type");
-            int columnIndex = tblDB.getColumnModel().getColumnIndex(columnName);
-            String oldValue = tblDB.getValueAt(selectedRow, columnIndex).toString();
+        for (ColumnInfo column : columns) {
+            Object oldValue = rowValues.get(column.getName());
             String newValue = JOptionPane.showInputDialog(parent,
-                "Update value for " + columnName + " (" + columnType + ")", oldValue);
+                "Update value for " + column.getName() + " (" + column.getType() + ")", oldValue);
             if (newValue != null && !newValue.trim().isEmpty()) {
-                data.put(columnName, newValue);
+                data.put(column.getName(), newValue);
             }
-            conditions.put(columnName, oldValue);
         }
-        if (!data.isEmpty()) {
-            String query = QueryBuilder.buildUpdateQuery(table, data, conditions);
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                int paramIndex = 1;
-                for (Object value : data.values()) {
-                    pstmt.setObject(paramIndex++, value);
-                }
-                for (Object value : conditions.values()) {
-                    pstmt.setObject(paramIndex++, value);
-                }
-                pstmt.executeUpdate();
+        return data;
+    }
+
+    public void updateRecord(String database, String table, Map<String, Object> data, Map<String, Object> conditions) throws SQLException {
+        validateInput(table, "Table");
+        validateInput(data, "Data");
+        String query = QueryBuilder.buildUpdateQuery(table, data, conditions);
+        try (Connection connection = pool.borrow(database);
+                PreparedStatement pstmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            for (Object value : data.values()) {
+                pstmt.setObject(paramIndex++, value);
+            }
+            for (Object value : conditions.values()) {
+                pstmt.setObject(paramIndex++, value);
             }
+            pstmt.executeUpdate();
+        } finally {
+            pool.getResultCache().invalidateTable(database, table);
         }
     }
 
     public void dropTable(String database, String table) throws SQLException {
-        Statement stmt = connection.createStatement();
         String query = "DROP TABLE " + database + "." + table;
-        stmt.executeUpdate(query);
+        try (Connection connection = pool.borrow();
+                Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(query);
+        } finally {
+            metadataCache.invalidateTable(database, table);
+            pool.getResultCache().invalidateTable(database, table);
+        }
     }
 
     public void createTable(String database, String tableName, String columns) throws SQLException {
-        validateConnection(connection);
         validateInput(database, "Database");
         validateInput(tableName, "Table");
         validateInput(columns, "Columns");
         String query = QueryBuilder.buildCreateTableQuery(tableName, columns);        
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = pool.borrow(database);
+                Statement stmt = connection.createStatement()) {
+            validateConnection(connection);
             stmt.executeUpdate(query);
+        } finally {
+            metadataCache.invalidateTable(database, tableName);
+            pool.getResultCache().invalidateTable(database, tableName);
         }
     }
 
@@ -170,22 +469,4 @@ public class TableOperations {
         String query = QueryBuilder.buildSelectQuery(table, "*", null);
         return executeQuery(connection, query);
     }
-    
-    public DefaultTableModel createTableModel(ResultSet rs) throws SQLException {
-        java.sql.ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        String[] columnNames = new String[columnCount];
-        for (int i = 1; i <= columnCount; i++) {
-            columnNames[i - 1] = metaData.getColumnName(i);
-        }
-        DefaultTableModel model = new DefaultTableModel(columnNames, 0);
-        while (rs.next()) {
-            Object[] row = new Object[columnCount];
-            for (int i = 1; i <= columnCount; i++) {
-                row[i - 1] = rs.getObject(i);
-            }
-            model.addRow(row);
-        }
-        return model;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package helloswing;
+
+import java.awt.FlowLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.function.Consumer;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.JViewport;
+import javax.swing.event.TableModelListener;
+
+/**
+ * First/previous/next/last and jump-to-page controls for a table showing a
+ * {@link PagedTableModel}. Navigating scrolls the table to the start of the
+ * page, and the model fetches the rows as they become visible. The total is
+ * shown as an estimate until the end is reached or an exact count is
+ * requested.
+ */
+public class TablePager extends JPanel {
+    private final JTable table;
+    private final JViewport viewport;
+    private final JButton btnFirst = new JButton("|<");
+    private final JButton btnPrev = new JButton("<");
+    private final JTextField txtPage = new JTextField(5);
+    private final JLabel lblPages = new JLabel();
+    private final JButton btnNext = new JButton(">");
+    private final JButton btnLast = new JButton(">|");
+    private final JLabel lblRows = new JLabel();
+    private final JButton btnCount = new JButton("Count rows");
+    private final TableModelListener modelListener = e -> update();
+    private PagedTableModel model;
+    private boolean counting;
+
+    /**
+     * @param countRequest called with the model when the user asks for an
+     *        exact row count
+     */
+    public TablePager(JTable table, JScrollPane scrollPane, Consumer<PagedTableModel> countRequest) {
+        super(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        this.table = table;
+        this.viewport = scrollPane.getViewport();
+        setOpaque(false);
+        txtPage.setHorizontalAlignment(JTextField.RIGHT);
+        btnFirst.setToolTipText("First page");
+        btnPrev.setToolTipText("Previous page");
+        btnNext.setToolTipText("Next page");
+        btnLast.setToolTipText("Last page");
+        txtPage.setToolTipText("Page number; press Enter to jump");
+        btnCount.setToolTipText("Run SELECT COUNT(*) for the exact number of rows");
+        btnFirst.addActionListener(e -> goToPage(0));
+        btnPrev.addActionListener(e -> goToPage(getCurrentPage() - 1));
+        btnNext.addActionListener(e -> goToPage(getCurrentPage() + 1));
+        btnLast.addActionListener(e -> goToPage(model.getPageCount() - 1));
+        txtPage.addActionListener(e -> {
+            try {
+                goToPage(Integer.parseInt(txtPage.getText().trim()) - 1);
+            } catch (NumberFormatException ex) {
+                update();
+            }
+        });
+        btnCount.addActionListener(e -> {
+            counting = true;
+            btnCount.setEnabled(false);
+            countRequest.accept(model);
+        });
+        add(btnFirst);
+        add(btnPrev);
+        add(txtPage);
+        add(lblPages);
+        add(btnNext);
+        add(btnLast);
+        add(lblRows);
+        add(btnCount);
+        viewport.addChangeListener(e -> update());
+        setModel(null);
+    }
+
+    /**
+     * Attaches the pager to {@code model}, or disables it for null (a table
+     * that is not paged).
+     */
+    public void setModel(PagedTableModel model) {
+        if (this.model != null) {
+            this.model.removeTableModelListener(modelListener);
+        }
+        this.model = model;
+        counting = false;
+        if (model != null) {
+            model.addTableModelListener(modelListener);
+        }
+        update();
+    }
+
+    public int getCurrentPage() {
+        if (model == null) {
+            return 0;
+        }
+        int row = table.rowAtPoint(viewport.getViewPosition());
+        return Math.max(0, row) / model.getPageSize();
+    }
+
+    public void goToPage(int page) {
+        if (model == null || model.getRowCount() == 0) {
+            return;
+        }
+        int target = Math.max(0, Math.min(page, model.getPageCount() - 1));
+        int row = Math.min(target * model.getPageSize(), model.getRowCount() - 1);
+        Rectangle cell = table.getCellRect(table.convertRowIndexToView(row), 0, true);
+        int maxY = Math.max(0, table.getPreferredSize().height - viewport.getExtentSize().height);
+        viewport.setViewPosition(new Point(viewport.getViewPosition().x, Math.min(cell.y, maxY)));
+        update();
+    }
+
+    /**
+     * Re-enables the count button after a count finished or failed.
+     */
+    public void countFinished() {
+        counting = false;
+        update();
+    }
+
+    private void update() {
+        boolean paged = model != null;
+        for (java.awt.Component component : getComponents()) {
+            component.setEnabled(paged);
+        }
+        if (!paged) {
+            txtPage.setText("");
+            lblPages.setText("");
+            lblRows.setText("");
+            return;
+        }
+        int page = getCurrentPage();
+        int pages = Math.max(1, model.getPageCount());
+        boolean exact = model.isExhausted();
+        if (!txtPage.isFocusOwner()) {
+            txtPage.setText(String.valueOf(page + 1));
+        }
+        lblPages.setText("of " + (exact ? "" : "~") + pages);
+        lblRows.setText(exact ? String.format("%,d rows", model.getRowCount())
+            : model.getEstimatedRowCount() >= 0 ? String.format("~%,d rows (estimate)", model.getEstimatedRowCount())
+            : String.format("%,d+ rows", model.getLoadedRowCount()));
+        btnFirst.setEnabled(page > 0);
+        btnPrev.setEnabled(page > 0);
+        btnNext.setEnabled(page < pages - 1);
+        btnLast.setEnabled(page < pages - 1);
+        btnCount.setEnabled(!exact && !counting);
+    }
+}
@@ -0,0 +1,302 @@
+package helloswing;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs database work on a bounded pool of worker threads and hands results
+ * back to the Event Dispatch Thread. Statements created on pooled connections
+ * while a task runs are tracked so the task can be cancelled with
+ * {@link Statement#cancel()}. If cancelling fails, or the task is still
+ * running after a grace period, the statement is killed on the server
+ * through its {@link QueryKiller}.
+ */
+public class TaskRunner {
+    private static final Logger LOGGER = Logger.getLogger(TaskRunner.class.getName());
+    private static final ThreadLocal<TaskHandle> CURRENT = new ThreadLocal<>();
+    private static final long KILL_GRACE_MILLIS = 5000;
+    private static final ScheduledExecutorService CANCELLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-canceller");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Aborts a statement from outside its connection, e.g. with KILL QUERY.
+     */
+    public interface QueryKiller {
+        void kill() throws SQLException;
+    }
+
+    public interface ProgressListener {
+        void tasksChanged(int running, String description);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Set<TaskHandle> running = ConcurrentHashMap.newKeySet();
+    private volatile ProgressListener progressListener;
+
+    public TaskRunner(int workers) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "db-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Runs {@code task} in the background. Exactly one of {@code onSuccess} or
+     * {@code onError} is invoked on the EDT, unless the task was cancelled.
+     */
+    public <T> TaskHandle submit(String description, Task<T> task, Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        return submit(description, task, onSuccess, onError, null);
+    }
+
+    /**
+     * As above, but if the task was cancelled {@code onCancel} is invoked on
+     * the EDT instead, with the task's result if it still completed, or null
+     * if it failed. Use it to undo UI state set up for the task, or to
+     * release what a task that finished despite the cancel returned.
+     */
+    public <T> TaskHandle submit(String description, Task<T> task, Consumer<? super T> onSuccess,
+            Consumer<? super Exception> onError, Consumer<? super T> onCancel) {
+        TaskHandle handle = new TaskHandle(description);
+        running.add(handle);
+        fireProgress(description);
+        executor.execute(() -> {
+            CURRENT.set(handle);
+            try {
+                T result = task.call();
+                finish(handle, () -> {
+                    if (onSuccess != null) {
+                        onSuccess.accept(result);
+                    }
+                }, () -> {
+                    if (onCancel != null) {
+                        onCancel.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                finish(handle, () -> {
+                    if (onError != null) {
+                        onError.accept(e);
+                    }
+                }, () -> {
+                    if (onCancel != null) {
+                        onCancel.accept(null);
+                    }
+                });
+            } finally {
+                CURRENT.remove();
+            }
+        });
+        return handle;
+    }
+
+    private void finish(TaskHandle handle, Runnable callback, Runnable cancelled) {
+        handle.done = true;
+        running.remove(handle);
+        SwingUtilities.invokeLater(() -> {
+            if (handle.isCancelled()) {
+                cancelled.run();
+            } else {
+                callback.run();
+            }
+        });
+        fireProgress(null);
+    }
+
+    private void fireProgress(String description) {
+        ProgressListener listener = progressListener;
+        if (listener == null) {
+            return;
+        }
+        int count = running.size();
+        String label = description;
+        if (label == null) {
+            label = running.stream().findAny().map(TaskHandle::getDescription).orElse(null);
+        }
+        String current = label;
+        SwingUtilities.invokeLater(() -> listener.tasksChanged(count, current));
+    }
+
+    public int cancelAll() {
+        int cancelled = 0;
+        for (TaskHandle handle : new ArrayList<>(running)) {
+            if (handle.cancel()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    public void shutdown() {
+        cancelAll();
+        executor.shutdown();
+    }
+
+    static void track(Statement stmt) {
+        track(stmt, null);
+    }
+
+    static void track(Statement stmt, QueryKiller killer) {
+        TaskHandle handle = CURRENT.get();
+        if (handle != null) {
+            handle.track(stmt, killer);
+        }
+    }
+
+    /**
+     * Wraps {@code task} so that the statements it opens are cancelled with
+     * the task running on the calling thread, on whatever thread it runs.
+     */
+    static <T> Callable<T> inCurrentTask(Callable<T> task) {
+        TaskHandle handle = CURRENT.get();
+        return () -> {
+            TaskHandle previous = CURRENT.get();
+            CURRENT.set(handle);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Whether the task running on this thread has been cancelled.
+     */
+    static boolean isCurrentCancelled() {
+        TaskHandle handle = CURRENT.get();
+        return handle != null && handle.isCancelled();
+    }
+
+    private static final class Tracked {
+        private final Statement stmt;
+        private final QueryKiller killer;
+
+        Tracked(Statement stmt, QueryKiller killer) {
+            this.stmt = stmt;
+            this.killer = killer;
+        }
+    }
+
+    public static final class TaskHandle {
+        private final String description;
+        private final List<Tracked> statements = new ArrayList<>();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        TaskHandle(String description) {
+            this.description = description;
+        }
+
+        private synchronized void track(Statement stmt, QueryKiller killer) {
+            Tracked tracked = new Tracked(stmt, killer);
+            statements.add(tracked);
+            if (cancelled) {
+                CANCELLER.execute(() -> cancelQuietly(tracked));
+            }
+        }
+
+        /**
+         * Requests cancellation and returns immediately; the statements are
+         * cancelled on a background thread because the driver opens a
+         * separate connection to do so.
+         */
+        public boolean cancel() {
+            if (done || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            CANCELLER.execute(() -> {
+                List<Tracked> snapshot;
+                synchronized (this) {
+                    snapshot = new ArrayList<>(statements);
+                }
+                for (Tracked tracked : snapshot) {
+                    cancelQuietly(tracked);
+                }
+            });
+            CANCELLER.schedule(this::killIfRunning, KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        }
+
+        private void cancelQuietly(Tracked tracked) {
+            try {
+                if (!tracked.stmt.isClosed()) {
+                    tracked.stmt.cancel();
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Failed to cancel statement, killing the query instead", e);
+                killQuietly(tracked);
+            }
+        }
+
+        private void killIfRunning() {
+            if (done) {
+                return;
+            }
+            List<Tracked> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(statements);
+            }
+            LOGGER.log(Level.WARNING, "Task \"{0}\" still running after cancel, killing its queries", description);
+            for (Tracked tracked : snapshot) {
+                killQuietly(tracked);
+            }
+        }
+
+        private void killQuietly(Tracked tracked) {
+            if (tracked.killer == null || done) {
+                return;
+            }
+            try {
+                tracked.killer.kill();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Failed to kill query", e);
+            }
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+}